@@ -0,0 +1,27 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.1"
+}
+
+val testsDump = project(":tests").layout.buildDirectory.file("generated/source/proto/test/protogen-debug/descriptor_dump")
+
+dependencies {
+    jmhImplementation(project(":generator"))
+    jmhImplementation(project(":javapoet"))
+    jmhImplementation(project(":options"))
+    jmhImplementation("com.google.protobuf:protobuf-java:3.21.9")
+}
+
+jmh {
+    jmhVersion = "1.37"
+    profilers.add("gc")
+    resultFormat = "JSON"
+    // Other dumps recorded by the DumpGenerator: -Pdumps=/path/to/descriptor_dump,/path/to/another_dump
+    val dumps = (findProperty("dumps") as String?)?.split(',') ?: listOf(testsDump.get().asFile.absolutePath)
+    benchmarkParameters.put("dump", objects.listProperty<String>().value(dumps))
+}
+
+tasks.named("jmh") {
+    if (!project.hasProperty("dumps")) {
+        dependsOn(":tests:generateTestProto")
+    }
+}
@@ -0,0 +1,35 @@
+package org.sudu.protogen.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sudu.protogen.RequestBuilder;
+import org.sudu.protogen.generator.GenerationRequest;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and linking the descriptors of the parsed request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescriptorBuildingBenchmark {
+
+    @Param("")
+    public String dump;
+
+    private Dump loaded;
+
+    @Setup
+    public void setUp() throws IOException {
+        loaded = Dump.load(dump);
+    }
+
+    @Benchmark
+    public GenerationRequest build() {
+        return RequestBuilder.fromProtocRequest(loaded.request, loaded.configuration);
+    }
+}
@@ -0,0 +1,127 @@
+package org.sudu.protogen.benchmarks;
+
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import org.sudu.protogen.Options;
+import org.sudu.protogen.ProtogenGenerator;
+import org.sudu.protogen.RequestBuilder;
+import org.sudu.protogen.config.Configuration;
+import org.sudu.protogen.config.YamlExternalConfigurationParser;
+import org.sudu.protogen.descriptors.Enum;
+import org.sudu.protogen.descriptors.EnumOrMessage;
+import org.sudu.protogen.descriptors.Field;
+import org.sudu.protogen.descriptors.File;
+import org.sudu.protogen.descriptors.Message;
+import org.sudu.protogen.descriptors.Service;
+import org.sudu.protogen.generator.GenerationContext;
+import org.sudu.protogen.generator.GenerationRequest;
+import org.sudu.protogen.plugin.ProtocPluginTesting;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A request recorded by the {@code DumpGenerator} and the descriptors the generator would work on
+ */
+final class Dump {
+
+    final CodeGeneratorRequest request;
+
+    final Configuration configuration;
+
+    final GenerationRequest generationRequest;
+
+    final List<File> filesToGenerate;
+
+    private Dump(CodeGeneratorRequest request, Configuration configuration, GenerationRequest generationRequest) {
+        this.request = request;
+        this.configuration = configuration;
+        this.generationRequest = generationRequest;
+        this.filesToGenerate = generationRequest.allFiles().stream()
+                .filter(file -> generationRequest.filesToGenerateNames().contains(file.getName()))
+                .map(File.class::cast)
+                .toList();
+    }
+
+    static Dump load(String path) throws IOException {
+        byte[] bytes = Files.readAllBytes(Path.of(path));
+        CodeGeneratorRequest request = ProtocPluginTesting.readRequest(new ByteArrayInputStream(bytes), Options.extensionRegistry());
+        String configurationDirectory = ProtogenGenerator.configurationDirectory(request.getParameter());
+        Configuration configuration = configurationDirectory == null
+                ? Configuration.builder().build()
+                : new YamlExternalConfigurationParser(configurationDirectory).parse();
+        return new Dump(request, configuration, RequestBuilder.fromProtocRequest(request, configuration));
+    }
+
+    GenerationContext newContext() {
+        return new GenerationContext(configuration);
+    }
+
+    /**
+     * The types the generator starts from, the nested ones are generated with their containing message
+     */
+    List<EnumOrMessage> generatedTypes() {
+        List<EnumOrMessage> types = new ArrayList<>();
+        for (File file : filesToGenerate) {
+            for (EnumOrMessage type : file.getNested()) {
+                if (type.doGenerate()) types.add(type);
+            }
+        }
+        return types;
+    }
+
+    List<Message> generatedMessages() {
+        List<Message> messages = new ArrayList<>();
+        for (EnumOrMessage type : allTypes()) {
+            if (type instanceof Message message && message.doGenerate()) messages.add(message);
+        }
+        return messages;
+    }
+
+    List<Enum> generatedEnums() {
+        List<Enum> enums = new ArrayList<>();
+        for (EnumOrMessage type : allTypes()) {
+            if (type instanceof Enum anEnum && anEnum.doGenerate()) enums.add(anEnum);
+        }
+        return enums;
+    }
+
+    List<Field> generatedFields() {
+        List<Field> fields = new ArrayList<>();
+        for (Message message : generatedMessages()) {
+            fields.addAll(message.getFields());
+        }
+        return fields;
+    }
+
+    List<Service> generatedServices() {
+        List<Service> services = new ArrayList<>();
+        for (File file : filesToGenerate) {
+            for (Service service : file.getServices()) {
+                if (service.doGenerate()) services.add(service);
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Every type declared by the files to generate, nested ones included
+     */
+    List<EnumOrMessage> allTypes() {
+        List<EnumOrMessage> types = new ArrayList<>();
+        for (File file : filesToGenerate) {
+            collect(file.getNested(), types);
+        }
+        return types;
+    }
+
+    private static void collect(List<? extends EnumOrMessage> nested, List<EnumOrMessage> types) {
+        for (EnumOrMessage type : nested) {
+            types.add(type);
+            collect(type.getNested(), types);
+        }
+    }
+}
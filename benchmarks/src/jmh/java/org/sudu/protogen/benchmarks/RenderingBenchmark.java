@@ -0,0 +1,62 @@
+package org.sudu.protogen.benchmarks;
+
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sudu.protogen.descriptors.EnumOrMessage;
+import org.sudu.protogen.descriptors.File;
+import org.sudu.protogen.descriptors.Service;
+import org.sudu.protogen.generator.GenerationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the built {@code TypeSpec}s into java sources with javapoet
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmark {
+
+    @Param("")
+    public String dump;
+
+    private final List<JavaFile> javaFiles = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        Dump loaded = Dump.load(dump);
+        GenerationContext context = loaded.newContext();
+        String indent = " ".repeat(loaded.configuration.indentationSize());
+        for (File file : loaded.filesToGenerate) {
+            List<TypeSpec> typeSpecs = new ArrayList<>();
+            for (EnumOrMessage type : file.getNested()) {
+                if (type.doGenerate()) typeSpecs.add(context.generatorsHolder().generate(type));
+            }
+            for (Service service : file.getServices()) {
+                if (!service.doGenerate()) continue;
+                typeSpecs.add(context.generatorsHolder().generateClient(service));
+                typeSpecs.add(context.generatorsHolder().generateService(service));
+            }
+            for (TypeSpec typeSpec : typeSpecs) {
+                javaFiles.add(JavaFile.builder(file.getGeneratePackage(), typeSpec).indent(indent).build());
+            }
+        }
+    }
+
+    @Benchmark
+    public void render(Blackhole blackhole) throws IOException {
+        for (JavaFile javaFile : javaFiles) {
+            StringBuilder content = new StringBuilder();
+            javaFile.writeTo(content);
+            blackhole.consume(content);
+        }
+    }
+}
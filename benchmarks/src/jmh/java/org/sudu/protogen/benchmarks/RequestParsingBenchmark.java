@@ -0,0 +1,39 @@
+package org.sudu.protogen.benchmarks;
+
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import org.openjdk.jmh.annotations.*;
+import org.sudu.protogen.Options;
+import org.sudu.protogen.plugin.ProtocPluginTesting;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the serialized request, as the plugin reads it from stdin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestParsingBenchmark {
+
+    @Param("")
+    public String dump;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        bytes = Files.readAllBytes(Path.of(dump));
+    }
+
+    @Benchmark
+    public CodeGeneratorRequest parse() throws IOException {
+        return ProtocPluginTesting.readRequest(new ByteArrayInputStream(bytes), Options.extensionRegistry());
+    }
+}
@@ -0,0 +1,58 @@
+package org.sudu.protogen.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sudu.protogen.descriptors.EnumOrMessage;
+import org.sudu.protogen.descriptors.Field;
+import org.sudu.protogen.generator.GenerationContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the java types of every type and field by the {@code TypeManager}. Each invocation starts
+ * from a new context, so nothing is served by the memo of the previous one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeResolutionBenchmark {
+
+    @Param("")
+    public String dump;
+
+    private Dump loaded;
+
+    private List<EnumOrMessage> types;
+
+    private List<Field> fields;
+
+    private GenerationContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        loaded = Dump.load(dump);
+        types = loaded.allTypes();
+        fields = loaded.generatedFields();
+    }
+
+    @Setup(Level.Invocation)
+    public void newContext() {
+        context = loaded.newContext();
+    }
+
+    @Benchmark
+    public void resolve(Blackhole blackhole) {
+        GenerationContext.TypeManager typeManager = context.typeManager();
+        for (EnumOrMessage type : types) {
+            blackhole.consume(typeManager.processType(type));
+        }
+        for (Field field : fields) {
+            blackhole.consume(typeManager.processType(field));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.sudu.protogen.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sudu.protogen.descriptors.Enum;
+import org.sudu.protogen.descriptors.Field;
+import org.sudu.protogen.descriptors.Message;
+import org.sudu.protogen.descriptors.Service;
+import org.sudu.protogen.generator.GenerationContext;
+import org.sudu.protogen.generator.field.FieldGenerationHelper;
+import org.sudu.protogen.generator.field.FieldProcessingResult;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@code TypeSpec}s of one generator. Each invocation starts from a new context where the fields
+ * are already processed, so that the generator of the fields is left out, except for the {@code field} generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeSpecBenchmark {
+
+    @Param("")
+    public String dump;
+
+    @Param({"field", "message", "builder", "enum", "client", "service"})
+    public String generator;
+
+    private Dump loaded;
+
+    private List<Field> fields;
+
+    private List<Message> messages;
+
+    private List<Message> messagesWithBuilder;
+
+    private List<Enum> enums;
+
+    private List<Service> services;
+
+    private GenerationContext context;
+
+    @Setup
+    public void setUp() throws IOException {
+        loaded = Dump.load(dump);
+        fields = loaded.generatedFields();
+        messages = loaded.generatedMessages();
+        enums = loaded.generatedEnums();
+        services = loaded.generatedServices();
+        GenerationContext context = loaded.newContext();
+        // The messages MessageGenerator adds a builder to
+        messagesWithBuilder = messages.stream()
+                .filter(Message::generateBuilderOption)
+                .filter(message -> FieldGenerationHelper.processAllFields(message, context).anyMatch(FieldProcessingResult::isNullable))
+                .toList();
+    }
+
+    @Setup(Level.Invocation)
+    public void newContext() {
+        context = loaded.newContext();
+        if (!generator.equals("field")) {
+            fields.forEach(context.generatorsHolder()::generate);
+        }
+    }
+
+    @Benchmark
+    public void generate(Blackhole blackhole) {
+        GenerationContext.GeneratorsHolder holder = context.generatorsHolder();
+        switch (generator) {
+            case "field" -> fields.forEach(field -> blackhole.consume(holder.generate(field)));
+            case "message" -> messages.forEach(message -> blackhole.consume(holder.generate(message)));
+            case "builder" -> messagesWithBuilder.forEach(message -> blackhole.consume(holder.generateBuilder(message)));
+            case "enum" -> enums.forEach(anEnum -> blackhole.consume(holder.generate(anEnum)));
+            case "client" -> services.forEach(service -> blackhole.consume(holder.generateClient(service)));
+            case "service" -> services.forEach(service -> blackhole.consume(holder.generateService(service)));
+            default -> throw new IllegalArgumentException("Unknown generator " + generator);
+        }
+    }
+}
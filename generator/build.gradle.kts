@@ -69,6 +69,61 @@ publishing {
 tasks.shadowJar {
     archiveClassifier = "jvm"
     manifest.attributes["Main-Class"] = "org.sudu.protogen.Main"
+    manifest.attributes["Implementation-Version"] = project.version
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("scaling")
+    }
+}
+
+val scalingTest = tasks.register<Test>("scalingTest") {
+    group = "verification"
+    description = "Checks that the generation time and heap grow linearly with the number of messages"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("scaling")
+    }
+    // The scaling tests generate up to 10k messages
+    maxHeapSize = "2g"
+    shouldRunAfter(tasks.test)
+}
+
+val daemonLauncher = tasks.register<Copy>("daemonLauncher") {
+    from("src/main/scripts")
+    into(layout.buildDirectory.dir("libs"))
+    fileMode = "755".toInt(8)
+}
+
+tasks.shadowJar {
+    finalizedBy(daemonLauncher)
+}
+
+/**
+ * Class data archive of a training run over the protos of the tests module, written next to the jvm jar.
+ * It only fits the JVM it was trained with, the launcher script uses it when it is there.
+ * Not a part of the build: it runs the plugin and depends on the local JVM, ask for it explicitly.
+ */
+val cdsArchive = tasks.register<Exec>("cdsArchive") {
+    group = "distribution"
+    description = "Trains a class data archive for the launcher on the protos of the tests module"
+    val jar = tasks.shadowJar.flatMap { it.archiveFile }
+    val request = project(":tests").layout.buildDirectory.file("generated/source/proto/test/protogen-debug/descriptor_dump")
+    val archive = jar.map { it.asFile.resolveSibling(it.asFile.nameWithoutExtension + ".jsa") }
+    dependsOn(tasks.shadowJar, ":tests:generateTestProto")
+    inputs.file(jar)
+    inputs.file(request)
+    outputs.file(archive)
+    workingDir = temporaryDir
+    environment("PROTOGEN_DAEMON", "false")
+    standardOutput = java.io.OutputStream.nullOutputStream()
+    doFirst {
+        archive.get().delete()
+        standardInput = request.get().asFile.inputStream()
+        commandLine("java", "-XX:ArchiveClassesAtExit=${archive.get()}", "-jar", jar.get().asFile)
+    }
 }
 
 val shadowDebugger = tasks.register<ShadowJar>("debuggerShadowJar") {
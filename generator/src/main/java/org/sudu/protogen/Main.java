@@ -1,18 +1,128 @@
 package org.sudu.protogen;
 
+import org.sudu.protogen.generator.SharedCaches;
+import org.sudu.protogen.plugin.BatchRunner;
+import org.sudu.protogen.plugin.PluginClient;
+import org.sudu.protogen.plugin.PluginDaemon;
 import org.sudu.protogen.plugin.ProtocPlugin;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Main {
 
-    public static void main(String[] args) {
+    private static final String DAEMON = "--daemon";
+
+    private static final String CLIENT = "--client";
+
+    private static final String BATCH = "--batch";
+
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    public static void main(String[] args) throws IOException {
+        boolean client = args.length == 0 ? isDaemonEnabled() : args[0].equals(CLIENT);
+        if (client) {
+            client(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals(BATCH)) {
+            System.exit(batch(args));
+        }
+        if (args.length > 0 && args[0].equals(DAEMON)) {
+            var generator = new ProtogenGenerator(new SharedCaches());
+            Path socket = args.length > 1 ? Path.of(args[1]) : PluginClient.defaultSocket();
+            PluginDaemon.serve(List.of(generator), Options::extensionRegistry, socket, idleTimeout());
+            return;
+        }
         var generator = new ProtogenGenerator();
-        var extensions = generator.getExtensions();
         if (args.length == 0) {
-            ProtocPlugin.generate(List.of(generator), extensions);
+            ProtocPlugin.generate(List.of(generator), Options::extensionRegistry);
         } else {
-            ProtocPlugin.debug(List.of(generator), extensions, args[0]);
+            ProtocPlugin.debug(List.of(generator), Options::extensionRegistry, args[0]);
         }
     }
+
+    /**
+     * {@code [--client [<socket>]]}, forwards the request to the daemon, starting it for the next calls if none listens.
+     * The request and the response are spooled to temporary files rather than held in memory.
+     */
+    private static void client(String[] args) throws IOException {
+        // Kept to generate in-process if the daemon doesn't answer
+        Path request = Files.createTempFile("protogen-request", ".bin");
+        Path response = Files.createTempFile("protogen-response", ".bin");
+        try {
+            Files.copy(System.in, request, StandardCopyOption.REPLACE_EXISTING);
+            // Nothing of the generator is loaded before the daemon turns out to be unavailable
+            boolean answered = false;
+            try {
+                Path socket = args.length > 1 ? Path.of(args[1]) : PluginClient.defaultSocket();
+                answered = PluginClient.forward(socket, request, response);
+                if (!answered) {
+                    PluginClient.startDaemon(socket, Main.class.getName());
+                }
+            } catch (IOException e) {
+                System.err.println("Generating without the daemon: " + e.getMessage());
+            }
+            if (answered) {
+                // Only a complete response reaches protoc
+                Files.copy(response, System.out);
+                System.out.flush();
+            } else {
+                ProtocPlugin.generate(List.of(new ProtogenGenerator()), Options::extensionRegistry, request);
+            }
+        } finally {
+            deleteTemporary(request);
+            deleteTemporary(response);
+        }
+    }
+
+    private static void deleteTemporary(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // A mapped request can't be deleted on Windows until the mapping is collected
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * {@code --batch --out <directory> [--config <directory>] <request or descriptor set>...}
+     *
+     * @return the exit code
+     */
+    private static int batch(String[] args) {
+        Path outputDirectory = null;
+        String parameter = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> outputDirectory = i + 1 < args.length ? Path.of(args[++i]) : null;
+                case "--config" -> parameter = i + 1 < args.length ? "config=" + args[++i] : null;
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (outputDirectory == null || inputs.isEmpty()) {
+            System.err.println("Usage: " + BATCH + " --out <directory> [--config <directory>] <request or descriptor set>...");
+            return 2;
+        }
+        var generator = new ProtogenGenerator(new SharedCaches());
+        return BatchRunner.run(List.of(generator), Options::extensionRegistry, inputs, outputDirectory, parameter) ? 0 : 1;
+    }
+
+    /**
+     * Lets the plugin jar itself act as the client, without a launcher script
+     */
+    private static boolean isDaemonEnabled() {
+        return Boolean.parseBoolean(System.getenv("PROTOGEN_DAEMON"));
+    }
+
+    private static Duration idleTimeout() {
+        String minutes = System.getenv("PROTOGEN_DAEMON_IDLE_MINUTES");
+        return minutes == null || minutes.isBlank() ? DEFAULT_IDLE_TIMEOUT : Duration.ofMinutes(Long.parseLong(minutes.trim()));
+    }
 }
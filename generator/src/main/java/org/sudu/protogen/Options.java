@@ -1,5 +1,6 @@
 package org.sudu.protogen;
 
+import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.GeneratedMessage.GeneratedExtension;
 import com.google.protobuf.GeneratedMessageV3;
 
@@ -10,6 +11,13 @@ import java.util.Optional;
 
 public class Options {
 
+    /**
+     * The registry of the protogen options, built on the first call and shared by all the requests
+     */
+    public static ExtensionRegistry extensionRegistry() {
+        return RegistryHolder.REGISTRY;
+    }
+
     @SuppressWarnings("rawtypes")
     public static List<GeneratedExtension> getOptionsExtensions() {
         return Arrays.stream(protogen.Options.class.getFields())
@@ -34,4 +42,15 @@ public class Options {
         }
         return Optional.empty();
     }
+
+    private static final class RegistryHolder {
+
+        private static final ExtensionRegistry REGISTRY = build();
+
+        private static ExtensionRegistry build() {
+            ExtensionRegistry registry = ExtensionRegistry.newInstance();
+            protogen.Options.registerAllExtensions(registry);
+            return registry.getUnmodifiable();
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package org.sudu.protogen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The parameter of the plugin, a comma-separated list of options: {@code config=/path/to/config/,report=report.json}.
+ * An option without a name is the directory of the configuration.
+ *
+ * @param configurationDirectory the directory of the yaml configuration, {@code null} to use the defaults
+ * @param report                 the file to write the profiling report of the run to, {@code null} not to profile
+ */
+public record PluginParameters(@Nullable String configurationDirectory, @Nullable String report) {
+
+    private static final String CONFIG = "config=";
+
+    private static final String REPORT = "report=";
+
+    @NotNull
+    public static PluginParameters parse(@NotNull String parameter) {
+        String configurationDirectory = null;
+        String report = null;
+        for (String option : parameter.split(",")) {
+            if (option.isBlank()) {
+                continue;
+            }
+            // protoc splits the parameter by colons, the ones of the windows paths are replaced with *
+            String value = option.trim().replace("*", ":");
+            if (value.startsWith(REPORT)) {
+                report = value.substring(REPORT.length());
+            } else {
+                configurationDirectory = value.startsWith(CONFIG) ? value.substring(CONFIG.length()) : value;
+            }
+        }
+        return new PluginParameters(configurationDirectory, report);
+    }
+}
@@ -5,41 +5,215 @@ import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
 import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.sudu.protogen.config.Configuration;
 import org.sudu.protogen.config.YamlExternalConfigurationParser;
+import org.sudu.protogen.descriptors.File;
 import org.sudu.protogen.generator.GenerationContext;
 import org.sudu.protogen.generator.GenerationRequest;
 import org.sudu.protogen.generator.GenerationResult;
+import org.sudu.protogen.generator.OutputCache;
+import org.sudu.protogen.generator.SharedCaches;
+import org.sudu.protogen.generator.profiling.GenerationProfile;
+import org.sudu.protogen.generator.profiling.Phase;
 import org.sudu.protogen.plugin.Generator;
 import org.sudu.protogen.plugin.GeneratorException;
+import org.sudu.protogen.plugin.RequestStatistics;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class ProtogenGenerator extends Generator {
 
+    @Nullable
+    private final SharedCaches sharedCaches;
+
+    public ProtogenGenerator() {
+        this(null);
+    }
+
+    /**
+     * @param sharedCaches kept warm between the requests when the generator serves many of them
+     */
+    public ProtogenGenerator(@Nullable SharedCaches sharedCaches) {
+        this.sharedCaches = sharedCaches;
+    }
+
     @Override
     public List<CodeGeneratorResponse.File> generateFiles(CodeGeneratorRequest request) throws GeneratorException {
-        String requestParam = request.getParameter();
+        List<CodeGeneratorResponse.File> files = new ArrayList<>();
+        generateFiles(request, files::add);
+        return files;
+    }
+
+    @Override
+    public void generateFiles(CodeGeneratorRequest request, Consumer<CodeGeneratorResponse.File> sink) throws GeneratorException {
+        generateFiles(request, null, sink);
+    }
+
+    /**
+     * @param statistics how the request was read, {@code null} if unknown
+     */
+    @Override
+    public void generateFiles(CodeGeneratorRequest request, @Nullable RequestStatistics statistics,
+                              Consumer<CodeGeneratorResponse.File> sink) throws GeneratorException {
+        PluginParameters parameters = PluginParameters.parse(request.getParameter());
+        GenerationProfile profile = parameters.report() == null ? GenerationProfile.disabled() : GenerationProfile.collecting();
+        if (statistics != null) {
+            profile.record(Phase.REQUEST_PARSE, statistics.parseNanos(), request.getProtoFileCount());
+            profile.count("requestBytes", statistics.bytes());
+        }
+
         Configuration configuration = Configuration.builder().build();
-        if (!requestParam.isBlank()) {
-            String configFilePath = requestParam.replace("config=", "").replace("*", ":");
-            configuration = new YamlExternalConfigurationParser(configFilePath).parse();
+        Path configurationDirectory = null;
+        String configFilePath = parameters.configurationDirectory();
+        if (configFilePath != null) {
+            GenerationProfile.Span span = profile.start(Phase.CONFIG_LOAD, configFilePath);
+            configurationDirectory = Path.of(configFilePath);
+            configuration = sharedCaches == null
+                    ? new YamlExternalConfigurationParser(configFilePath).parse()
+                    : sharedCaches.configuration(configurationDirectory, directory -> new YamlExternalConfigurationParser(configFilePath).parse());
+            span.end();
+        }
+
+        GenerationProfile.Span descriptors = profile.start(Phase.DESCRIPTOR_BUILD);
+        GenerationRequest generationRequest = RequestBuilder.fromProtocRequest(request, configuration);
+        descriptors.end(request.getProtoFileCount());
+
+        generate(generationRequest, configurationDirectory, profile, file -> {
+            GenerationProfile.Span span = profile.start(Phase.RESPONSE_WRITE, file.fileName());
+            sink.accept(buildFile(file));
+            span.end();
+            profile.count("outputFiles", 1);
+            profile.count("outputChars", file.content().length());
+        });
+
+        if (parameters.report() != null) {
+            try {
+                profile.writeReport(Path.of(parameters.report()));
+            } catch (IOException e) {
+                System.err.println("Failed to write the profiling report: " + e.getMessage());
+            }
         }
-        return generate(RequestBuilder.fromProtocRequest(request, configuration))
-                .generatedFiles()
-                .stream()
-                .map(this::buildFile)
-                .toList();
     }
 
-    private GenerationResult generate(GenerationRequest request) {
+    /**
+     * @param parameter the parameter of the plugin, like {@code config=/path/to/config/}
+     * @return the directory of the yaml configuration, {@code null} to use the defaults
+     */
+    public static @Nullable String configurationDirectory(String parameter) {
+        return PluginParameters.parse(parameter).configurationDirectory();
+    }
+
+    private void generate(GenerationRequest request, @Nullable Path configurationDirectory, GenerationProfile profile,
+                          Consumer<GenerationResult.File> consumer) {
         var allFiles = request.allFiles();
         var filesToGenerate = allFiles.stream()
                 .filter(file -> request.filesToGenerateNames().contains(file.getName()))
                 .toList();
-        var context = new GenerationContext(request.configuration());
-        return new org.sudu.protogen.generator.Generator(context, filesToGenerate).generate();
+        profile.count("protoFiles", filesToGenerate.size());
+        var context = new GenerationContext(request.configuration(), sharedCaches, profile);
+        OutputCache outputCache = openOutputCache(request.configuration().outputCache(), configurationDirectory);
+        if (outputCache == null) {
+            new org.sudu.protogen.generator.Generator(context, filesToGenerate).generate(consumer);
+        } else {
+            generateIncrementally(context, filesToGenerate, outputCache, consumer);
+        }
+        context.finishRun();
+        profile.recordCaches(context.generatorsHolder().statistics());
+        profile.recordCaches(context.typeManager().statistics());
+    }
+
+    private static @Nullable OutputCache openOutputCache(@Nullable Path directory, @Nullable Path configurationDirectory) {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            return new OutputCache(directory, configurationDirectory);
+        } catch (IOException e) {
+            System.err.println("Generating everything, the output cache can't be used: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replays the cached outputs of the files whose inputs didn't change and only generates the other ones
+     */
+    private void generateIncrementally(GenerationContext context, List<? extends File> filesToGenerate,
+                                       OutputCache cache, Consumer<GenerationResult.File> consumer) {
+        List<File> changed = new ArrayList<>();
+        Map<String, String> fingerprints = new HashMap<>();
+        for (File file : filesToGenerate) {
+            String fingerprint = cache.fingerprint(file);
+            List<GenerationResult.File> cached = replay(context, cache, cache.load(fingerprint), file);
+            if (cached != null) {
+                cached.forEach(consumer);
+            } else {
+                changed.add(file);
+                fingerprints.put(file.getName(), fingerprint);
+            }
+        }
+
+        Map<String, List<OutputCache.CachedFile>> outputs = new HashMap<>();
+        changed.forEach(file -> outputs.put(file.getName(), new ArrayList<>()));
+        AtomicBoolean storing = new AtomicBoolean(true);
+        new org.sudu.protogen.generator.Generator(context, changed).generate(generated -> {
+            if (storing.get()) {
+                try {
+                    outputs.get(generated.protoFile()).add(cache.storeContent(generated));
+                } catch (IOException e) {
+                    System.err.println("Stopped filling the output cache: " + e.getMessage());
+                    storing.set(false);
+                }
+            }
+            consumer.accept(generated);
+        });
+        if (storing.get()) {
+            for (File file : changed) {
+                try {
+                    cache.store(fingerprints.get(file.getName()), outputs.get(file.getName()), context.getterDecisions(file.getName()));
+                } catch (IOException e) {
+                    System.err.println("Failed to cache the outputs of " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+        context.profile().count("replayedProtoFiles", filesToGenerate.size() - changed.size());
+        System.err.println("Replayed " + (filesToGenerate.size() - changed.size()) + " of " + filesToGenerate.size()
+                + " files from the output cache");
+    }
+
+    /**
+     * @return {@code null} when the entry is missing or stale, the files have to be generated then
+     */
+    private static @Nullable List<GenerationResult.File> replay(GenerationContext context, OutputCache cache,
+                                                                @Nullable OutputCache.Entry entry, File file) {
+        if (entry == null) {
+            return null;
+        }
+        for (GenerationContext.GetterDecision decision : entry.getterDecisions()) {
+            // The original classes are not a part of the fingerprint, their fields may have changed since
+            if (!context.isVisibilityAnalysisEnabled()
+                    || context.visibilityAnalyzer().needGetter(decision.className(), decision.attributeName()) != decision.needGetter()) {
+                return null;
+            }
+        }
+        List<GenerationResult.File> files = new ArrayList<>(entry.files().size());
+        try {
+            for (OutputCache.CachedFile cached : entry.files()) {
+                files.add(new GenerationResult.File(cached.packageName(), cached.fileName(), cache.readContent(cached), file.getName()));
+            }
+        } catch (IOException e) {
+            System.err.println("Regenerating " + file.getName() + ", its cached outputs can't be read: " + e.getMessage());
+            return null;
+        }
+        return files;
     }
 
     @NotNull
@@ -3,40 +3,117 @@ package org.sudu.protogen;
 import com.google.protobuf.DescriptorProtos;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.compiler.PluginProtos;
+import org.jetbrains.annotations.Nullable;
 import org.sudu.protogen.config.Configuration;
+import org.sudu.protogen.descriptors.DescriptorRegistry;
 import org.sudu.protogen.descriptors.File;
 import org.sudu.protogen.generator.GenerationRequest;
 import org.sudu.protogen.plugin.GeneratorException;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 public class RequestBuilder {
 
     public static GenerationRequest fromProtocRequest(PluginProtos.CodeGeneratorRequest protocRequest, Configuration configuration) {
-        var extractedFiles = extractFileDescriptors(protocRequest.getProtoFileList());
-        List<File> allFiles = extractedFiles.stream()
-                .map(File::new)
-                .toList();
         List<String> filesToGenerate = protocRequest.getFileToGenerateList().stream().toList();
+        var extractedFiles = extractFileDescriptors(protocRequest.getProtoFileList(), filesToGenerate, configuration.parallelism());
+        List<File> allFiles = DescriptorRegistry.build(extractedFiles.values(), configuration.filesConfiguration()).getFiles();
         return new GenerationRequest(allFiles, filesToGenerate, configuration);
     }
 
-    private static List<Descriptors.FileDescriptor> extractFileDescriptors(List<DescriptorProtos.FileDescriptorProto> fileDescriptorProtoList) {
-        Map<String, Descriptors.FileDescriptor> filesByName = new HashMap<>();
+    /**
+     * Builds the files to generate and their transitive dependencies, the other files of the request are skipped.
+     * The files are built by levels: the files without dependencies first, then the files depending on them only and
+     * so on. The files of a level don't depend on each other, with a parallelism above 1 they are built in parallel.
+     *
+     * @return the built files by name
+     */
+    private static SortedMap<String, Descriptors.FileDescriptor> extractFileDescriptors(
+            List<DescriptorProtos.FileDescriptorProto> fileDescriptorProtoList,
+            List<String> filesToGenerate,
+            int parallelism
+    ) {
+        Map<String, DescriptorProtos.FileDescriptorProto> protosByName = new HashMap<>();
         for (DescriptorProtos.FileDescriptorProto fp : fileDescriptorProtoList) {
+            protosByName.putIfAbsent(fp.getName(), fp);
+        }
+        Map<String, Integer> depths = new HashMap<>();
+        for (String name : filesToGenerate) {
+            depth(name, null, protosByName, depths, new HashSet<>());
+        }
+        SortedMap<Integer, List<DescriptorProtos.FileDescriptorProto>> levels = new TreeMap<>();
+        new TreeMap<>(depths).forEach((name, depth) ->
+                levels.computeIfAbsent(depth, $ -> new ArrayList<>()).add(protosByName.get(name)));
+
+        Map<String, Descriptors.FileDescriptor> filesByName = new HashMap<>();
+        Runnable buildLevels = () -> {
+            for (List<DescriptorProtos.FileDescriptorProto> level : levels.values()) {
+                Stream<DescriptorProtos.FileDescriptorProto> protos = parallelism > 1 ? level.parallelStream() : level.stream();
+                // The previous levels are complete and only read while this one is built
+                List<Descriptors.FileDescriptor> built = protos.map(fp -> buildFile(fp, filesByName)).toList();
+                built.forEach(fd -> filesByName.put(fd.getName(), fd));
+            }
+        };
+        if (parallelism <= 1) {
+            buildLevels.run();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
             try {
-                Descriptors.FileDescriptor[] dependencies = fp.getDependencyList().stream()
-                        .map(filesByName::get)
-                        .toArray(Descriptors.FileDescriptor[]::new);
-                var fd = Descriptors.FileDescriptor.buildFrom(fp, dependencies);
-                filesByName.put(fp.getName(), fd);
-            } catch (Descriptors.DescriptorValidationException e) {
-                throw new GeneratorException(e.getMessage());
+                pool.submit(buildLevels).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the descriptors", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                if (e.getCause() instanceof Error error) throw error;
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdown();
             }
         }
-        return new ArrayList<>(filesByName.values());
+        return new TreeMap<>(filesByName);
+    }
+
+    private static Descriptors.FileDescriptor buildFile(DescriptorProtos.FileDescriptorProto fp,
+                                                        Map<String, Descriptors.FileDescriptor> filesByName) {
+        try {
+            Descriptors.FileDescriptor[] dependencies = fp.getDependencyList().stream()
+                    .map(filesByName::get)
+                    .toArray(Descriptors.FileDescriptor[]::new);
+            return Descriptors.FileDescriptor.buildFrom(fp, dependencies);
+        } catch (Descriptors.DescriptorValidationException e) {
+            throw new GeneratorException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the length of the longest import chain from the file, 0 for a file without imports
+     */
+    private static int depth(String name, @Nullable String importedBy,
+                             Map<String, DescriptorProtos.FileDescriptorProto> protosByName,
+                             Map<String, Integer> depths, Set<String> visiting) {
+        Integer known = depths.get(name);
+        if (known != null) {
+            return known;
+        }
+        DescriptorProtos.FileDescriptorProto fp = protosByName.get(name);
+        if (fp == null) {
+            throw new GeneratorException(importedBy == null
+                    ? name + " is not a part of the request"
+                    : name + " imported by " + importedBy + " is not a part of the request");
+        }
+        if (!visiting.add(name)) {
+            throw new GeneratorException("Import cycle through " + name);
+        }
+        int depth = 0;
+        for (String dependency : fp.getDependencyList()) {
+            depth = Math.max(depth, depth(dependency, name, protosByName, depths, visiting) + 1);
+        }
+        visiting.remove(name);
+        depths.put(name, depth);
+        return depth;
     }
 }
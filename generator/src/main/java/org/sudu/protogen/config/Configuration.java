@@ -2,9 +2,11 @@ package org.sudu.protogen.config;
 
 import com.squareup.javapoet.ClassName;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.sudu.protogen.config.naming.NamingManager;
 import org.sudu.protogen.config.naming.SuduNamingManager;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -13,10 +15,13 @@ import java.util.stream.Stream;
 public record Configuration(
         @NotNull NamingManager namingManager,
         int indentationSize,
+        int parallelism,
         @NotNull ClassName nullableAnnotationClass,
         @NotNull ClassName nonnullAnnotationClass,
         @NotNull List<RegisteredTransformer> registeredTransformers,
-        @NotNull Map<String, FileConfiguration> filesConfiguration
+        @NotNull Map<String, FileConfiguration> filesConfiguration,
+        @NotNull VisibilityAnalysis visibilityAnalysis,
+        @Nullable Path outputCache
 ) {
 
     interface Parser {
@@ -32,21 +37,30 @@ public record Configuration(
 
         NamingManager namingManager = new SuduNamingManager();
         int indentationSize = 4;
+        int parallelism = 1;
         ClassName nullableAnnotationClass = ClassName.get("org.jetbrains.annotations", "Nullable");
         ClassName nonnullAnnotationClass = ClassName.get("org.jetbrains.annotations", "NotNull");
         List<RegisteredTransformer> registeredTransformers = RegisteredTransformer.defaultTransformers();
         Map<String, FileConfiguration> filesConfiguration = new HashMap<>();
+        VisibilityAnalysis visibilityAnalysis = VisibilityAnalysis.defaults();
+        Path outputCache = null;
 
         public Configuration build() {
-            return new Configuration(namingManager, indentationSize, nullableAnnotationClass,
-                    nonnullAnnotationClass, registeredTransformers, filesConfiguration);
+            return new Configuration(namingManager, indentationSize, parallelism, nullableAnnotationClass,
+                    nonnullAnnotationClass, registeredTransformers, filesConfiguration, visibilityAnalysis, outputCache);
         }
 
         public Builder merge(GeneralConfiguration generalConfiguration) {
             Optional.ofNullable(generalConfiguration.indentationSize)
                     .ifPresent(this::indentationSize);
+            Optional.ofNullable(generalConfiguration.parallelism)
+                    .ifPresent(this::parallelism);
             Optional.ofNullable(generalConfiguration.registeredTransformers)
                     .ifPresent(this::addRegisteredTransformers);
+            Optional.ofNullable(generalConfiguration.visibility)
+                    .ifPresent(visibility -> visibilityAnalysis(visibilityAnalysis.merge(visibility)));
+            Optional.ofNullable(generalConfiguration.outputCache)
+                    .ifPresent(directory -> outputCache(directory.isBlank() ? null : Path.of(directory)));
             return this;
         }
 
@@ -55,6 +69,32 @@ public record Configuration(
             return this;
         }
 
+        /**
+         * @param parallelism threads generating the files: 1 generates them on the calling thread,
+         *                    0 uses as many threads as there are processors
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 0) {
+                throw new IllegalArgumentException("Parallelism can't be negative: " + parallelism);
+            }
+            this.parallelism = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+            return this;
+        }
+
+        public Builder visibilityAnalysis(VisibilityAnalysis visibilityAnalysis) {
+            this.visibilityAnalysis = visibilityAnalysis;
+            return this;
+        }
+
+        /**
+         * @param outputCache directory of the outputs reused by the following runs when their inputs didn't change,
+         *                    {@code null} regenerates everything on every run
+         */
+        public Builder outputCache(@Nullable Path outputCache) {
+            this.outputCache = outputCache;
+            return this;
+        }
+
         public Builder addRegisteredTransformers(List<RegisteredTransformer> transformers) {
             this.registeredTransformers = new ArrayList<>(
                     Stream.concat(registeredTransformers.stream(), transformers.stream())
@@ -8,19 +8,28 @@ public class GeneralConfiguration {
 
     @Nullable Integer indentationSize;
 
+    @Nullable Integer parallelism;
+
     @Nullable List<RegisteredTransformer> registeredTransformers;
 
     @Nullable String nullableAnnotation;
 
     @Nullable String notNullAnnotation;
 
+    @Nullable VisibilityConfiguration visibility;
+
+    @Nullable String outputCache;
+
     @Override
     public String toString() {
         return "GeneralConfiguration{" +
                 "indentationSize=" + indentationSize +
+                ", parallelism=" + parallelism +
                 ", registeredTransformers=" + registeredTransformers +
                 ", nullableAnnotation='" + nullableAnnotation + '\'' +
                 ", notNullAnnotation='" + notNullAnnotation + '\'' +
+                ", visibility=" + visibility +
+                ", outputCache='" + outputCache + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,98 @@
+package org.sudu.protogen.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.generator.field.visibility.CompilationUnitCache;
+import org.sudu.protogen.generator.field.visibility.SourceEngine;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Settings of the analysis checking whether the fields of the original classes are accessible.
+ * Relative paths are resolved against the working directory of the plugin.
+ *
+ * @param enabled               when disabled, fields are always accessed directly and nothing is read from the disk.
+ *                              Enabled by default as soon as source roots, workspaces or a classpath are configured.
+ * @param sourceRoots           source directories of the projects containing the original classes
+ * @param workspaces            directories whose projects are searched for source roots, in addition to {@code sourceRoots}
+ * @param classpath             directories of compiled classes and jars read before the sources. Empty to only read the sources.
+ * @param engine                how the sources are read
+ * @param cacheFile             where the analysis results are persisted between runs, {@code null} disables the persistence
+ * @param parsedSourceCacheSize how many parsed source files are kept in memory, a daemon keeps them between requests
+ */
+public record VisibilityAnalysis(
+        boolean enabled,
+        @NotNull List<Path> sourceRoots,
+        @NotNull List<Path> workspaces,
+        @NotNull List<Path> classpath,
+        @NotNull SourceEngine engine,
+        @Nullable Path cacheFile,
+        int parsedSourceCacheSize
+) {
+
+    public static final String DEFAULT_CACHE_FILE = "build/protogen/visibility.cache";
+
+    public static VisibilityAnalysis defaults() {
+        return new VisibilityAnalysis(false, List.of(), List.of(), List.of(), SourceEngine.SCANNER, Path.of(DEFAULT_CACHE_FILE),
+                CompilationUnitCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Identifies the settings the classes are resolved with: the roots, the classpath and the engine
+     */
+    @NotNull
+    public String fingerprint() {
+        StringBuilder settings = new StringBuilder();
+        appendPaths(settings, "sourceRoots", sourceRoots);
+        appendPaths(settings, "workspaces", workspaces);
+        appendPaths(settings, "classpath", classpath);
+        settings.append("engine=").append(engine).append('\n');
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(settings.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendPaths(StringBuilder settings, String name, List<Path> paths) {
+        settings.append(name).append('=');
+        // Relative paths depend on the working directory of the plugin
+        paths.forEach(path -> settings.append(path.toAbsolutePath().normalize()).append(File.pathSeparatorChar));
+        settings.append('\n');
+    }
+
+    VisibilityAnalysis merge(VisibilityConfiguration configuration) {
+        List<Path> mergedSourceRoots = configuration.sourceRoots == null ? sourceRoots : toPaths(configuration.sourceRoots);
+        List<Path> mergedWorkspaces = configuration.workspaces == null ? workspaces : toPaths(configuration.workspaces);
+        List<Path> mergedClasspath = configuration.classpath == null ? classpath : toPaths(configuration.classpath);
+        boolean mergedEnabled = configuration.enabled != null
+                ? configuration.enabled
+                : enabled || configuration.sourceRoots != null || configuration.workspaces != null || configuration.classpath != null;
+        SourceEngine mergedEngine = configuration.engine != null ? configuration.engine : engine;
+        Path mergedCacheFile = cacheFile;
+        if (configuration.cacheFile != null) {
+            mergedCacheFile = configuration.cacheFile.isBlank() ? null : Path.of(configuration.cacheFile);
+        }
+        int mergedParsedSourceCacheSize = parsedSourceCacheSize;
+        if (configuration.parsedSourceCacheSize != null) {
+            if (configuration.parsedSourceCacheSize < 1) {
+                throw new IllegalArgumentException("The parsed source cache should keep at least one file: "
+                        + configuration.parsedSourceCacheSize);
+            }
+            mergedParsedSourceCacheSize = configuration.parsedSourceCacheSize;
+        }
+        return new VisibilityAnalysis(mergedEnabled, mergedSourceRoots, mergedWorkspaces, mergedClasspath, mergedEngine,
+                mergedCacheFile, mergedParsedSourceCacheSize);
+    }
+
+    private static List<Path> toPaths(List<String> paths) {
+        return paths.stream().map(Path::of).toList();
+    }
+}
@@ -0,0 +1,36 @@
+package org.sudu.protogen.config;
+
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.generator.field.visibility.SourceEngine;
+
+import java.util.List;
+
+public class VisibilityConfiguration {
+
+    @Nullable Boolean enabled;
+
+    @Nullable List<String> sourceRoots;
+
+    @Nullable List<String> workspaces;
+
+    @Nullable List<String> classpath;
+
+    @Nullable SourceEngine engine;
+
+    @Nullable String cacheFile;
+
+    @Nullable Integer parsedSourceCacheSize;
+
+    @Override
+    public String toString() {
+        return "VisibilityConfiguration{" +
+                "enabled=" + enabled +
+                ", sourceRoots=" + sourceRoots +
+                ", workspaces=" + workspaces +
+                ", classpath=" + classpath +
+                ", engine=" + engine +
+                ", cacheFile='" + cacheFile + '\'' +
+                ", parsedSourceCacheSize=" + parsedSourceCacheSize +
+                '}';
+    }
+}
@@ -19,8 +19,6 @@ import java.io.IOException;
 
 public class YamlExternalConfigurationParser implements Configuration.Parser {
 
-    private static final ObjectMapper objectMapper = configureObjectMapper();
-
     @NotNull
     private final String configDirectory;
 
@@ -28,6 +26,14 @@ public class YamlExternalConfigurationParser implements Configuration.Parser {
         this.configDirectory = configDirectory;
     }
 
+    /**
+     * Jackson is only loaded by the runs having a configuration
+     */
+    private static final class ObjectMapperHolder {
+
+        private static final ObjectMapper OBJECT_MAPPER = configureObjectMapper();
+    }
+
     @NotNull
     private static ObjectMapper configureObjectMapper() {
         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
@@ -57,7 +63,7 @@ public class YamlExternalConfigurationParser implements Configuration.Parser {
 
     private static <T> T parseConfigAss(File configFile, Class<T> clazz, T empty) {
         try {
-            return objectMapper.readValue(configFile, clazz);
+            return ObjectMapperHolder.OBJECT_MAPPER.readValue(configFile, clazz);
         }
         catch (Exception e) {
             throw new IllegalArgumentException(e);
@@ -1,4 +1,12 @@
 package org.sudu.protogen.descriptors;
 
 public interface Descriptor {
+
+    /**
+     * The underlying protobuf descriptor for the wrappers. The wrappers handed out by a {@link DescriptorRegistry}
+     * are canonical, the identity stays stable across registries built from the same descriptors.
+     */
+    default Object identity() {
+        return this;
+    }
 }
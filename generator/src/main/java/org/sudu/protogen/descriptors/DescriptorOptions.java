@@ -0,0 +1,207 @@
+package org.sudu.protogen.descriptors;
+
+import com.google.protobuf.Descriptors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.Options;
+import org.sudu.protogen.config.DescriptorConfiguration;
+import org.sudu.protogen.config.FileConfiguration;
+
+import javax.lang.model.element.Modifier;
+
+/**
+ * Protogen options of the descriptors, decoded once when the {@link DescriptorRegistry} is built.
+ * <p>
+ * A {@code null} component means the option is set neither in the proto file nor in the yaml configuration.
+ * The yaml configuration takes precedence over the options of the proto file.
+ */
+public final class DescriptorOptions {
+
+    private DescriptorOptions() {
+    }
+
+    public record FileOptions(
+            @Nullable Boolean enable,
+            @Nullable String pkg,
+            @Nullable Boolean disableNotnull,
+            @Nullable String javaPackage,
+            @Nullable String javaOuterClassname,
+            boolean javaMultipleFiles
+    ) {
+
+        static FileOptions of(@NotNull Descriptors.FileDescriptor descriptor, @Nullable FileConfiguration config) {
+            var options = descriptor.getOptions();
+            return new FileOptions(
+                    override(config == null ? null : config.enable,
+                            Options.wrapExtension(options, protogen.Options.enable).orElse(null)),
+                    override(config == null ? null : config.targetPackage,
+                            Options.wrapExtension(options, protogen.Options.pkg).orElse(null)),
+                    override(config == null ? null : config.disableNotNull,
+                            Options.wrapExtension(options, protogen.Options.disableNotnull).orElse(null)),
+                    options.hasJavaPackage() ? options.getJavaPackage() : null,
+                    options.hasJavaOuterClassname() ? options.getJavaOuterClassname() : null,
+                    options.getJavaMultipleFiles()
+            );
+        }
+    }
+
+    public record MessageOptions(
+            @Nullable Boolean generate,
+            @Nullable String name,
+            @Nullable String customClass,
+            @Nullable Boolean unfold,
+            @Nullable String comparator,
+            @Nullable String topic,
+            @Nullable Boolean builderForNullable,
+            boolean mapEntry
+    ) {
+
+        static MessageOptions of(@NotNull Descriptors.Descriptor descriptor, @Nullable DescriptorConfiguration config) {
+            var options = descriptor.getOptions();
+            return new MessageOptions(
+                    override(config == null ? null : config.generate,
+                            Options.wrapExtension(options, protogen.Options.genMessage).orElse(null)),
+                    override(config == null ? null : config.name,
+                            Options.wrapExtension(options, protogen.Options.messageName).orElse(null)),
+                    override(config == null ? null : config.customClass,
+                            Options.wrapExtension(options, protogen.Options.customClass).orElse(null)),
+                    override(config == null ? null : config.unfold,
+                            Options.wrapExtension(options, protogen.Options.unfold).orElse(null)),
+                    override(config == null ? null : config.comparator,
+                            Options.wrapExtension(options, protogen.Options.messageComparator).orElse(null)),
+                    override(config == null ? null : config.topic,
+                            Options.wrapExtension(options, protogen.Options.topic).orElse(null)),
+                    Options.wrapExtension(options, protogen.Options.builderForNullable).orElse(null),
+                    options.getMapEntry()
+            );
+        }
+    }
+
+    public record FieldOptions(
+            @Nullable String name,
+            @Nullable RepeatedContainer repeatedContainer,
+            @Nullable Boolean unused
+    ) {
+
+        static FieldOptions of(@NotNull Descriptors.FieldDescriptor descriptor,
+                               @Nullable DescriptorConfiguration.FieldConfiguration config) {
+            var options = descriptor.getOptions();
+            return new FieldOptions(
+                    override(config == null ? null : config.name,
+                            Options.wrapExtension(options, protogen.Options.fieldName).orElse(null)),
+                    override(config == null ? null : config.container,
+                            Options.wrapExtension(options, protogen.Options.repeatedContainer)
+                                    .map(RepeatedContainer::fromGrpc)
+                                    .orElse(null)),
+                    override(config == null ? null : config.unused,
+                            Options.wrapExtension(options, protogen.Options.unusedField).orElse(null))
+            );
+        }
+    }
+
+    public record EnumOptions(
+            @Nullable Boolean generate,
+            @Nullable String name,
+            @Nullable String customClass
+    ) {
+
+        static EnumOptions of(@NotNull Descriptors.EnumDescriptor descriptor, @Nullable DescriptorConfiguration config) {
+            var options = descriptor.getOptions();
+            return new EnumOptions(
+                    override(config == null ? null : config.generate,
+                            Options.wrapExtension(options, protogen.Options.genEnum).orElse(null)),
+                    override(config == null ? null : config.name,
+                            Options.wrapExtension(options, protogen.Options.enumName).orElse(null)),
+                    override(config == null ? null : config.customClass,
+                            Options.wrapExtension(options, protogen.Options.customEnum).orElse(null))
+            );
+        }
+    }
+
+    public record EnumValueOptions(
+            @Nullable String name,
+            @Nullable Boolean unused
+    ) {
+
+        static EnumValueOptions of(@NotNull Descriptors.EnumValueDescriptor descriptor,
+                                   @Nullable DescriptorConfiguration.EnumValueConfiguration config) {
+            var options = descriptor.getOptions();
+            return new EnumValueOptions(
+                    override(config == null ? null : config.name,
+                            Options.wrapExtension(options, protogen.Options.enumValName).orElse(null)),
+                    override(config == null ? null : config.unused,
+                            Options.wrapExtension(options, protogen.Options.unusedEnumVal).orElse(null))
+            );
+        }
+    }
+
+    public record ServiceOptions(
+            @Nullable Boolean generate,
+            @Nullable String name,
+            @Nullable Boolean isAbstract
+    ) {
+
+        static ServiceOptions of(@NotNull Descriptors.ServiceDescriptor descriptor, @Nullable DescriptorConfiguration config) {
+            var options = descriptor.getOptions();
+            return new ServiceOptions(
+                    override(config == null ? null : config.generate,
+                            Options.wrapExtension(options, protogen.Options.genService).orElse(null)),
+                    override(config == null ? null : config.name,
+                            Options.wrapExtension(options, protogen.Options.serviceName).orElse(null)),
+                    override(config == null ? null : config.isAbstract,
+                            Options.wrapExtension(options, protogen.Options.abstract_).orElse(null))
+            );
+        }
+    }
+
+    public record MethodOptions(
+            @Nullable Boolean generate,
+            @Nullable String name,
+            @Nullable Boolean unfoldRequest,
+            @Nullable protogen.Options.IfNotFound ifNotFound,
+            @Nullable RepeatedContainer streamToContainer,
+            @Nullable Modifier accessModifier
+    ) {
+
+        static MethodOptions of(@NotNull Descriptors.MethodDescriptor descriptor,
+                                @Nullable DescriptorConfiguration.MethodConfiguration config) {
+            var options = descriptor.getOptions();
+            return new MethodOptions(
+                    override(config == null ? null : config.generate,
+                            Options.wrapExtension(options, protogen.Options.genMethod).orElse(null)),
+                    override(config == null ? null : config.name,
+                            Options.wrapExtension(options, protogen.Options.methodName).orElse(null)),
+                    override(config == null ? null : config.unfoldRequest,
+                            Options.wrapExtension(options, protogen.Options.unfoldRequest).orElse(null)),
+                    override(config == null || config.ifNotFound == null ? null : ifNotFound(descriptor, config.ifNotFound),
+                            Options.wrapExtension(options, protogen.Options.ifNotFound).orElse(null)),
+                    override(config == null ? null : config.container,
+                            Options.wrapExtension(options, protogen.Options.streamToContainer)
+                                    .map(RepeatedContainer::fromGrpc)
+                                    .orElse(null)),
+                    override(config == null ? null : config.accessModifier,
+                            Options.wrapExtension(options, protogen.Options.accessModifier)
+                                    .map(option -> switch (option) {
+                                        case PUBLIC -> Modifier.PUBLIC;
+                                        case PRIVATE -> Modifier.PRIVATE;
+                                        case PROTECTED -> Modifier.PROTECTED;
+                                        case UNRECOGNIZED -> throw new IllegalStateException(
+                                                "Unknown access modifier of " + descriptor.getFullName());
+                                    })
+                                    .orElse(null))
+            );
+        }
+
+        private static protogen.Options.IfNotFound ifNotFound(Descriptors.MethodDescriptor descriptor, int number) {
+            protogen.Options.IfNotFound ifNotFound = protogen.Options.IfNotFound.forNumber(number);
+            if (ifNotFound == null) {
+                throw new IllegalArgumentException("Unknown ifNotFound value " + number + " for " + descriptor.getFullName());
+            }
+            return ifNotFound;
+        }
+    }
+
+    private static <T> @Nullable T override(@Nullable T configured, @Nullable T declared) {
+        return configured != null ? configured : declared;
+    }
+}
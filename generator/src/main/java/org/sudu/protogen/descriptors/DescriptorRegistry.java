@@ -0,0 +1,184 @@
+package org.sudu.protogen.descriptors;
+
+import com.google.protobuf.Descriptors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.config.DescriptorConfiguration;
+import org.sudu.protogen.config.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical wrappers of the descriptors of one generation request.
+ * <p>
+ * Every message, field, enum, service and method of the request files is wrapped once and the wrappers are linked to
+ * each other when the registry is built: navigating between them doesn't allocate, and the wrappers of the same
+ * descriptor are the same instance. Their {@link DescriptorOptions} are decoded at the same time. The registry isn't
+ * modified once built, so it may be read from several threads.
+ */
+public final class DescriptorRegistry {
+
+    private final Map<Descriptors.FileDescriptor, File> files = new IdentityHashMap<>();
+
+    private final Map<Descriptors.Descriptor, Message> messages = new IdentityHashMap<>();
+
+    private final Map<Descriptors.FieldDescriptor, Field> fields = new IdentityHashMap<>();
+
+    private final Map<Descriptors.EnumDescriptor, Enum> enums = new IdentityHashMap<>();
+
+    private final Map<Descriptors.ServiceDescriptor, Service> services = new IdentityHashMap<>();
+
+    private final Map<Descriptors.MethodDescriptor, Method> methods = new IdentityHashMap<>();
+
+    private final Map<String, FileConfiguration> filesConfiguration;
+
+    private final List<File> requestFiles;
+
+    private DescriptorRegistry(Collection<Descriptors.FileDescriptor> fileDescriptors,
+                               Map<String, FileConfiguration> filesConfiguration) {
+        this.filesConfiguration = filesConfiguration;
+        List<File> requestFiles = new ArrayList<>(fileDescriptors.size());
+        for (Descriptors.FileDescriptor fileDescriptor : fileDescriptors) {
+            requestFiles.add(register(fileDescriptor));
+        }
+        this.requestFiles = List.copyOf(requestFiles);
+        // Every wrapper exists now, the references between them can be resolved
+        files.values().forEach(file -> file.link(this));
+        messages.values().forEach(message -> message.link(this));
+        fields.values().forEach(field -> field.link(this));
+        enums.values().forEach(anEnum -> anEnum.link(this));
+        services.values().forEach(service -> service.link(this));
+        methods.values().forEach(method -> method.link(this));
+    }
+
+    /**
+     * @param fileDescriptors    all the files of the request, including the dependencies of the generated ones
+     * @param filesConfiguration the yaml configuration of the files, by the name of the file without extension
+     */
+    @NotNull
+    public static DescriptorRegistry build(@NotNull Collection<Descriptors.FileDescriptor> fileDescriptors,
+                                           @NotNull Map<String, FileConfiguration> filesConfiguration) {
+        return new DescriptorRegistry(fileDescriptors, filesConfiguration);
+    }
+
+    /**
+     * @return the files the registry was built from, in the same order
+     */
+    @NotNull
+    public List<File> getFiles() {
+        return requestFiles;
+    }
+
+    @NotNull
+    public File file(@NotNull Descriptors.FileDescriptor descriptor) {
+        return lookup(files, descriptor);
+    }
+
+    @NotNull
+    public Message message(@NotNull Descriptors.Descriptor descriptor) {
+        return lookup(messages, descriptor);
+    }
+
+    @NotNull
+    public Field field(@NotNull Descriptors.FieldDescriptor descriptor) {
+        return lookup(fields, descriptor);
+    }
+
+    @NotNull
+    public Enum enumType(@NotNull Descriptors.EnumDescriptor descriptor) {
+        return lookup(enums, descriptor);
+    }
+
+    @NotNull
+    public Service service(@NotNull Descriptors.ServiceDescriptor descriptor) {
+        return lookup(services, descriptor);
+    }
+
+    @NotNull
+    public Method method(@NotNull Descriptors.MethodDescriptor descriptor) {
+        return lookup(methods, descriptor);
+    }
+
+    private File register(Descriptors.FileDescriptor fileDescriptor) {
+        File file = files.get(fileDescriptor);
+        if (file != null) {
+            return file;
+        }
+        FileConfiguration fileConfiguration = filesConfiguration.get(configurationName(fileDescriptor));
+        file = new File(fileDescriptor, DescriptorOptions.FileOptions.of(fileDescriptor, fileConfiguration));
+        files.put(fileDescriptor, file);
+        for (Descriptors.Descriptor messageDescriptor : fileDescriptor.getMessageTypes()) {
+            register(messageDescriptor, fileConfiguration);
+        }
+        for (Descriptors.EnumDescriptor enumDescriptor : fileDescriptor.getEnumTypes()) {
+            register(enumDescriptor, fileConfiguration);
+        }
+        for (Descriptors.ServiceDescriptor serviceDescriptor : fileDescriptor.getServices()) {
+            DescriptorConfiguration config = descriptorConfiguration(fileConfiguration, serviceDescriptor);
+            services.put(serviceDescriptor, new Service(serviceDescriptor, DescriptorOptions.ServiceOptions.of(serviceDescriptor, config)));
+            for (Descriptors.MethodDescriptor method : serviceDescriptor.getMethods()) {
+                var methodConfig = config == null || config.methods == null ? null : config.methods.get(method.getName());
+                methods.put(method, new Method(method, DescriptorOptions.MethodOptions.of(method, methodConfig)));
+            }
+        }
+        return file;
+    }
+
+    private void register(Descriptors.Descriptor messageDescriptor, @Nullable FileConfiguration fileConfiguration) {
+        DescriptorConfiguration config = descriptorConfiguration(fileConfiguration, messageDescriptor);
+        messages.put(messageDescriptor, new Message(messageDescriptor, DescriptorOptions.MessageOptions.of(messageDescriptor, config)));
+        for (Descriptors.FieldDescriptor field : messageDescriptor.getFields()) {
+            var fieldConfig = config == null || config.fields == null ? null : config.fields.get(field.getName());
+            fields.put(field, new Field(field, DescriptorOptions.FieldOptions.of(field, fieldConfig)));
+        }
+        for (Descriptors.Descriptor nested : messageDescriptor.getNestedTypes()) {
+            register(nested, fileConfiguration);
+        }
+        for (Descriptors.EnumDescriptor nested : messageDescriptor.getEnumTypes()) {
+            register(nested, fileConfiguration);
+        }
+    }
+
+    private void register(Descriptors.EnumDescriptor enumDescriptor, @Nullable FileConfiguration fileConfiguration) {
+        DescriptorConfiguration config = descriptorConfiguration(fileConfiguration, enumDescriptor);
+        List<Enum.Value> values = enumDescriptor.getValues().stream()
+                .map(value -> new Enum.Value(value, DescriptorOptions.EnumValueOptions.of(value,
+                        config == null || config.values == null ? null : config.values.get(value.getName()))))
+                .toList();
+        enums.put(enumDescriptor, new Enum(enumDescriptor, DescriptorOptions.EnumOptions.of(enumDescriptor, config), values));
+    }
+
+    /**
+     * {@code api/shop.proto} is configured by {@code shop.protogen.yaml}
+     */
+    private static String configurationName(Descriptors.FileDescriptor fileDescriptor) {
+        String name = fileDescriptor.getName();
+        name = name.substring(name.lastIndexOf('/') + 1);
+        return name.endsWith(".proto") ? name.substring(0, name.length() - ".proto".length()) : name;
+    }
+
+    /**
+     * Descriptors are configured by their name in the proto package, e.g. {@code Outer.Inner} for a nested message
+     */
+    private static @Nullable DescriptorConfiguration descriptorConfiguration(@Nullable FileConfiguration fileConfiguration,
+                                                                             Descriptors.GenericDescriptor descriptor) {
+        if (fileConfiguration == null) {
+            return null;
+        }
+        String packageName = descriptor.getFile().getPackage();
+        String name = packageName.isEmpty() ? descriptor.getFullName() : descriptor.getFullName().substring(packageName.length() + 1);
+        return fileConfiguration.descriptors.get(name);
+    }
+
+    private static <K extends Descriptors.GenericDescriptor, V> V lookup(Map<K, V> wrappers, K descriptor) {
+        V wrapper = wrappers.get(descriptor);
+        if (wrapper == null) {
+            throw new IllegalArgumentException(descriptor.getFullName() + " is not a part of the request");
+        }
+        return wrapper;
+    }
+}
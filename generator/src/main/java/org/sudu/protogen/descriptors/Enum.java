@@ -3,7 +3,6 @@ package org.sudu.protogen.descriptors;
 import com.google.protobuf.Descriptors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.sudu.protogen.Options;
 
 import java.util.List;
 import java.util.Objects;
@@ -13,12 +12,29 @@ public class Enum extends EnumOrMessage implements Descriptor {
 
     private final Descriptors.EnumDescriptor enumDescriptor;
 
-    public Enum(Descriptors.EnumDescriptor enumDescriptor) {
+    private final DescriptorOptions.EnumOptions options;
+
+    private final List<? extends Value> values;
+
+    private File containingFile;
+
+    private @Nullable Message containingType;
+
+    Enum(Descriptors.EnumDescriptor enumDescriptor, DescriptorOptions.EnumOptions options, List<? extends Value> values) {
         this.enumDescriptor = enumDescriptor;
+        this.options = options;
+        this.values = values;
+    }
+
+    void link(DescriptorRegistry registry) {
+        containingFile = registry.file(enumDescriptor.getFile());
+        containingType = Optional.ofNullable(enumDescriptor.getContainingType())
+                .map(registry::message)
+                .orElse(null);
     }
 
     public List<? extends Value> getValues() {
-        return enumDescriptor.getValues().stream().map(Value::new).toList();
+        return values;
     }
 
     @Override
@@ -38,52 +54,45 @@ public class Enum extends EnumOrMessage implements Descriptor {
 
     @Override
     public @NotNull File getContainingFile() {
-        return new File(enumDescriptor.getFile());
+        return containingFile;
     }
 
     @Override
     public @Nullable Message getContainingType() {
-        return Optional.ofNullable(enumDescriptor.getContainingType())
-                .map(Message::new)
-                .orElse(null);
+        return containingType;
     }
 
     @Override
     public @Nullable String getCustomClass() {
-        return Options.wrapExtension(enumDescriptor.getOptions(), protogen.Options.customEnum).orElse(null);
+        return options.customClass();
     }
 
     // -----------------
 
     @Override
     protected Optional<Boolean> getDoGenerateOption() {
-        return Options.wrapExtension(enumDescriptor.getOptions(), protogen.Options.genEnum);
+        return Optional.ofNullable(options.generate());
     }
 
     @Override
     protected Optional<String> getOverriddenNameOption() {
-        return Options.wrapExtension(enumDescriptor.getOptions(), protogen.Options.enumName);
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Enum anEnum = (Enum) o;
-        return Objects.equals(enumDescriptor, anEnum.enumDescriptor);
+        return Optional.ofNullable(options.name());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(enumDescriptor);
+    public Object identity() {
+        return enumDescriptor;
     }
 
     public static class Value {
 
         private final Descriptors.EnumValueDescriptor valueDescriptor;
 
-        public Value(Descriptors.EnumValueDescriptor valueDescriptor) {
+        private final DescriptorOptions.EnumValueOptions options;
+
+        Value(Descriptors.EnumValueDescriptor valueDescriptor, DescriptorOptions.EnumValueOptions options) {
             this.valueDescriptor = valueDescriptor;
+            this.options = options;
         }
 
         public String generatedName() {
@@ -101,11 +110,11 @@ public class Enum extends EnumOrMessage implements Descriptor {
         // -----------------
 
         protected Optional<String> getOverriddenNameOption() {
-            return Options.wrapExtension(valueDescriptor.getOptions(), protogen.Options.enumValName);
+            return Optional.ofNullable(options.name());
         }
 
         protected Optional<Boolean> getUnusedOption() {
-            return Options.wrapExtension(valueDescriptor.getOptions(), protogen.Options.unusedEnumVal);
+            return Optional.ofNullable(options.unused());
         }
 
         @Override
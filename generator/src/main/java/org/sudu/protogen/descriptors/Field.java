@@ -3,24 +3,39 @@ package org.sudu.protogen.descriptors;
 import com.google.protobuf.Descriptors;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
-import org.sudu.protogen.Options;
 
-import java.util.Objects;
 import java.util.Optional;
 
 public class Field implements Descriptor {
 
-    private Descriptors.FieldDescriptor descriptor;
+    private final Descriptors.FieldDescriptor descriptor;
+
+    private final DescriptorOptions.FieldOptions options;
     private boolean needGetterInOriginalClass = false;
 
+    private Message messageType;
+
+    private Enum enumType;
+
+    private Message containingMessage;
+
     public boolean getNeedGetterInOriginalClass() {
         return this.needGetterInOriginalClass;
     }
     public void setNeedGetterInOriginalClass(boolean value) {
         this.needGetterInOriginalClass = value;
     }
-    public Field(Descriptors.FieldDescriptor descriptor) {
+    Field(Descriptors.FieldDescriptor descriptor, DescriptorOptions.FieldOptions options) {
         this.descriptor = descriptor;
+        this.options = options;
+    }
+
+    void link(DescriptorRegistry registry) {
+        switch (descriptor.getJavaType()) {
+            case MESSAGE -> messageType = registry.message(descriptor.getMessageType());
+            case ENUM -> enumType = registry.enumType(descriptor.getEnumType());
+        }
+        containingMessage = registry.message(descriptor.getContainingType());
     }
 
     public String getName() {
@@ -50,16 +65,16 @@ public class Field implements Descriptor {
 
     public @NotNull Message getMessageType() {
         Validate.validState(getType() == Type.MESSAGE);
-        return new Message(descriptor.getMessageType());
+        return messageType;
     }
 
     public @NotNull Enum getEnumType() {
         Validate.validState(getType() == Type.ENUM);
-        return new Enum(descriptor.getEnumType());
+        return enumType;
     }
 
     public Message getContainingMessage() {
-        return new Message(descriptor.getContainingType());
+        return containingMessage;
     }
 
     public final boolean isNullable() {
@@ -152,16 +167,15 @@ public class Field implements Descriptor {
     }
 
     protected Optional<String> getOverriddenNameOption() {
-        return Options.wrapExtension(descriptor.getOptions(), protogen.Options.fieldName);
+        return Optional.ofNullable(options.name());
     }
 
     protected Optional<RepeatedContainer> getRepeatedContainerOption() {
-        return Options.wrapExtension(descriptor.getOptions(), protogen.Options.repeatedContainer)
-                .map(RepeatedContainer::fromGrpc);
+        return Optional.ofNullable(options.repeatedContainer());
     }
 
     protected Optional<Boolean> getUnusedFieldOption() {
-        return Options.wrapExtension(descriptor.getOptions(), protogen.Options.unusedField);
+        return Optional.ofNullable(options.unused());
     }
 
     private Type mapType(Descriptors.FieldDescriptor.JavaType javaType) {
@@ -190,16 +204,8 @@ public class Field implements Descriptor {
 
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Field field = (Field) o;
-        return Objects.equals(descriptor, field.descriptor);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(descriptor);
+    public Object identity() {
+        return descriptor;
     }
 
     public enum Type {
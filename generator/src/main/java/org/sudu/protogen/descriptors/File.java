@@ -1,15 +1,14 @@
 package org.sudu.protogen.descriptors;
 
+import com.google.protobuf.DescriptorProtos;
 import com.google.protobuf.Descriptors;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.sudu.protogen.Options;
 import org.sudu.protogen.utils.FileUtils;
 import org.sudu.protogen.utils.Name;
 
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -17,8 +16,31 @@ public class File implements Descriptor {
 
     private final Descriptors.FileDescriptor fileDescriptor;
 
-    public File(Descriptors.FileDescriptor fileDescriptor) {
+    private final DescriptorOptions.FileOptions options;
+
+    private List<? extends EnumOrMessage> nested;
+
+    private List<? extends Service> services;
+
+    private List<File> dependencies;
+
+    File(Descriptors.FileDescriptor fileDescriptor, DescriptorOptions.FileOptions options) {
         this.fileDescriptor = fileDescriptor;
+        this.options = options;
+    }
+
+    void link(DescriptorRegistry registry) {
+        var messages = fileDescriptor.getMessageTypes().stream()
+                .map(registry::message);
+        var enums = fileDescriptor.getEnumTypes().stream()
+                .map(registry::enumType);
+        nested = Stream.concat(messages, enums).toList();
+        services = fileDescriptor.getServices().stream()
+                .map(registry::service)
+                .toList();
+        dependencies = fileDescriptor.getDependencies().stream()
+                .map(registry::file)
+                .toList();
     }
 
     public @NotNull String getName() {
@@ -30,17 +52,25 @@ public class File implements Descriptor {
     }
 
     public @NotNull List<? extends EnumOrMessage> getNested() {
-        var messages = fileDescriptor.getMessageTypes().stream()
-                .map(Message::new);
-        var enums = fileDescriptor.getEnumTypes().stream()
-                .map(Enum::new);
-        return Stream.concat(messages, enums).toList();
+        return nested;
     }
 
     public @NotNull List<? extends Service> getServices() {
-        return fileDescriptor.getServices().stream()
-                .map(Service::new)
-                .toList();
+        return services;
+    }
+
+    /**
+     * @return the files imported by this one
+     */
+    public @NotNull List<File> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * @return the file as protoc sent it
+     */
+    public @NotNull DescriptorProtos.FileDescriptorProto toProto() {
+        return fileDescriptor.toProto();
     }
 
     // =============
@@ -81,7 +111,7 @@ public class File implements Descriptor {
     }
 
     public boolean getJavaMultipleFiles() {
-        return fileDescriptor.getOptions().getJavaMultipleFiles();
+        return options.javaMultipleFiles();
     }
 
     // =============
@@ -98,37 +128,27 @@ public class File implements Descriptor {
     // =============
 
     protected @NotNull Optional<String> getJavaOuterClassnameOption() {
-        return Optional.of(fileDescriptor.getOptions().getJavaOuterClassname())
-                .filter($ -> fileDescriptor.getOptions().hasJavaOuterClassname());
+        return Optional.ofNullable(options.javaOuterClassname());
     }
 
     protected @NotNull Optional<String> getProtogenPackageOption() {
-        return Options.wrapExtension(fileDescriptor.getOptions(), protogen.Options.pkg);
+        return Optional.ofNullable(options.pkg());
     }
 
     protected @NotNull Optional<String> getJavaPackageOption() {
-        return Optional.of(fileDescriptor.getOptions().getJavaPackage())
-                .filter($ -> fileDescriptor.getOptions().hasJavaPackage());
+        return Optional.ofNullable(options.javaPackage());
     }
 
     protected @NotNull Optional<Boolean> getEnableOption() {
-        return Options.wrapExtension(fileDescriptor.getOptions(), protogen.Options.enable);
+        return Optional.ofNullable(options.enable());
     }
 
     protected @NotNull Optional<Boolean> getDisableNotNullOption() {
-        return Options.wrapExtension(fileDescriptor.getOptions(), protogen.Options.disableNotnull);
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        File file = (File) o;
-        return Objects.equals(fileDescriptor, file.fileDescriptor);
+        return Optional.ofNullable(options.disableNotnull());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(fileDescriptor);
+    public Object identity() {
+        return fileDescriptor;
     }
 }
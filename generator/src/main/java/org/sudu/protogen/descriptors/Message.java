@@ -3,10 +3,8 @@ package org.sudu.protogen.descriptors;
 import com.google.protobuf.Descriptors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.sudu.protogen.Options;
 
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -14,14 +12,43 @@ public class Message extends EnumOrMessage implements Descriptor {
 
     private final Descriptors.Descriptor messageDescriptor;
 
-    public Message(Descriptors.Descriptor messageDescriptor) {
+    private final DescriptorOptions.MessageOptions options;
+
+    private List<Field> fields;
+
+    private List<? extends EnumOrMessage> nested;
+
+    private List<OneOf> oneofs;
+
+    private File containingFile;
+
+    private @Nullable Message containingType;
+
+    Message(Descriptors.Descriptor messageDescriptor, DescriptorOptions.MessageOptions options) {
         this.messageDescriptor = messageDescriptor;
+        this.options = options;
     }
 
-    public List<Field> getFields() {
-        return messageDescriptor.getFields().stream()
-                .map(Field::new)
+    void link(DescriptorRegistry registry) {
+        fields = messageDescriptor.getFields().stream()
+                .map(registry::field)
+                .toList();
+        var messages = messageDescriptor.getNestedTypes().stream()
+                .map(registry::message);
+        var enums = messageDescriptor.getEnumTypes().stream()
+                .map(registry::enumType);
+        nested = Stream.concat(messages, enums).toList();
+        oneofs = messageDescriptor.getOneofs().stream()
+                .map(o -> new OneOf(o, this))
                 .toList();
+        containingFile = registry.file(messageDescriptor.getFile());
+        containingType = Optional.ofNullable(messageDescriptor.getContainingType())
+                .map(registry::message)
+                .orElse(null);
+    }
+
+    public List<Field> getFields() {
+        return fields;
     }
 
     public boolean isUnfolded() {
@@ -35,11 +62,11 @@ public class Message extends EnumOrMessage implements Descriptor {
      * @see <a href="https://protobuf.dev/programming-guides/proto3/#backwards">map specification</a>
      */
     public boolean isMap() {
-        return messageDescriptor.getOptions().getMapEntry();
+        return options.mapEntry();
     }
 
     public Optional<String> getComparatorReference() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.messageComparator);
+        return Optional.ofNullable(options.comparator());
     }
 
     @Override
@@ -54,28 +81,22 @@ public class Message extends EnumOrMessage implements Descriptor {
 
     @Override
     public @NotNull List<? extends EnumOrMessage> getNested() {
-        var messages = messageDescriptor.getNestedTypes().stream()
-                .map(Message::new);
-        var enums = messageDescriptor.getEnumTypes().stream()
-                .map(Enum::new);
-        return Stream.concat(messages, enums).toList();
+        return nested;
     }
 
     @Override
     public @NotNull File getContainingFile() {
-        return new File(messageDescriptor.getFile());
+        return containingFile;
     }
 
     @Override
     public @Nullable Message getContainingType() {
-        return Optional.ofNullable(messageDescriptor.getContainingType())
-                .map(Message::new)
-                .orElse(null);
+        return containingType;
     }
 
     @Override
     public @Nullable String getCustomClass() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.customClass).orElse(null);
+        return options.customClass();
     }
 
     @Override
@@ -86,46 +107,35 @@ public class Message extends EnumOrMessage implements Descriptor {
     }
 
     public boolean generateBuilderOption() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.builderForNullable)
-                .orElse(true);
+        return Optional.ofNullable(options.builderForNullable()).orElse(true);
     }
 
     public List<OneOf> getOneofs() {
-        return messageDescriptor.getOneofs().stream()
-                .map(o -> new OneOf(o, this))
-                .toList();
+        return oneofs;
     }
 
     public Optional<String> getTopic() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.topic);
+        return Optional.ofNullable(options.topic());
     }
 
     // -----------------
 
     protected Optional<Boolean> getUnfoldOption() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.unfold);
+        return Optional.ofNullable(options.unfold());
     }
 
     @Override
     protected Optional<Boolean> getDoGenerateOption() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.genMessage);
+        return Optional.ofNullable(options.generate());
     }
 
     @Override
     protected Optional<String> getOverriddenNameOption() {
-        return Options.wrapExtension(messageDescriptor.getOptions(), protogen.Options.messageName);
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Message message = (Message) o;
-        return Objects.equals(messageDescriptor, message.messageDescriptor);
+        return Optional.ofNullable(options.name());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(messageDescriptor);
+    public Object identity() {
+        return messageDescriptor;
     }
 }
@@ -2,19 +2,32 @@ package org.sudu.protogen.descriptors;
 
 import com.google.protobuf.Descriptors;
 import org.jetbrains.annotations.Nullable;
-import org.sudu.protogen.Options;
 import org.sudu.protogen.generator.type.TypeModel;
 
 import javax.lang.model.element.Modifier;
-import java.util.Objects;
 import java.util.Optional;
 
 public class Method implements Descriptor {
 
     private final Descriptors.MethodDescriptor methodDescriptor;
 
-    public Method(Descriptors.MethodDescriptor methodDescriptor) {
+    private final DescriptorOptions.MethodOptions options;
+
+    private Message inputType;
+
+    private Message outputType;
+
+    private File containingFile;
+
+    Method(Descriptors.MethodDescriptor methodDescriptor, DescriptorOptions.MethodOptions options) {
         this.methodDescriptor = methodDescriptor;
+        this.options = options;
+    }
+
+    void link(DescriptorRegistry registry) {
+        inputType = registry.message(methodDescriptor.getInputType());
+        outputType = registry.message(methodDescriptor.getOutputType());
+        containingFile = registry.file(methodDescriptor.getFile());
     }
 
     public String getName() {
@@ -22,11 +35,11 @@ public class Method implements Descriptor {
     }
 
     public Message getInputType() {
-        return new Message(methodDescriptor.getInputType());
+        return inputType;
     }
 
     public Message getOutputType() {
-        return new Message(methodDescriptor.getOutputType());
+        return outputType;
     }
 
     public boolean isInputStreaming() {
@@ -38,11 +51,11 @@ public class Method implements Descriptor {
     }
 
     public File getContainingFile() {
-        return new File(methodDescriptor.getFile());
+        return containingFile;
     }
 
     public final protogen.Options.IfNotFound ifNotFoundBehavior() {
-        return Options.wrapExtension(methodDescriptor.getOptions(), protogen.Options.ifNotFound)
+        return Optional.ofNullable(options.ifNotFound())
                 .orElse(protogen.Options.IfNotFound.IGNORE);
     }
 
@@ -69,45 +82,30 @@ public class Method implements Descriptor {
     }
 
     public Modifier getAccessModifier() {
-        return Options.wrapExtension(methodDescriptor.getOptions(), protogen.Options.accessModifier)
-                .map(option -> switch (option) {
-                    case PUBLIC -> Modifier.PUBLIC;
-                    case PRIVATE -> Modifier.PRIVATE;
-                    case PROTECTED -> Modifier.PROTECTED;
-                    case UNRECOGNIZED -> throw new IllegalStateException();
-                })
+        return Optional.ofNullable(options.accessModifier())
                 .orElse(Modifier.PUBLIC);
     }
 
 
     protected Optional<Boolean> getGenerateOption() {
-        return Options.wrapExtension(methodDescriptor.getOptions(), protogen.Options.genMethod);
+        return Optional.ofNullable(options.generate());
     }
 
     protected Optional<Boolean> getUnfoldRequestOption() {
-        return Options.wrapExtension(methodDescriptor.getOptions(), protogen.Options.unfoldRequest);
+        return Optional.ofNullable(options.unfoldRequest());
     }
 
     public RepeatedContainer getStreamToContainer() {
-        return Options.wrapExtension(methodDescriptor.getOptions(), protogen.Options.streamToContainer)
-                .map(RepeatedContainer::fromGrpc)
+        return Optional.ofNullable(options.streamToContainer())
                 .orElse(RepeatedContainer.ITERATOR);
     }
 
     protected Optional<String> getNameOption() {
-        return Options.wrapExtension(methodDescriptor.getOptions(), protogen.Options.methodName);
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Method method = (Method) o;
-        return Objects.equals(methodDescriptor, method.methodDescriptor);
+        return Optional.ofNullable(options.name());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(methodDescriptor);
+    public Object identity() {
+        return methodDescriptor;
     }
 }
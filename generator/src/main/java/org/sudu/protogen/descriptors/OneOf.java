@@ -7,7 +7,6 @@ import org.sudu.protogen.config.naming.NamingManager;
 import org.sudu.protogen.utils.Name;
 
 import java.util.List;
-import java.util.Objects;
 
 public class OneOf implements Descriptor {
 
@@ -15,7 +14,7 @@ public class OneOf implements Descriptor {
 
     private final Message parent;
 
-    public OneOf(Descriptors.OneofDescriptor oneofDescriptor, Message parent) {
+    OneOf(Descriptors.OneofDescriptor oneofDescriptor, Message parent) {
         this.oneofDescriptor = oneofDescriptor;
         this.parent = parent;
     }
@@ -44,15 +43,7 @@ public class OneOf implements Descriptor {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        OneOf oneOf = (OneOf) o;
-        return Objects.equals(oneofDescriptor, oneOf.oneofDescriptor) && Objects.equals(parent, oneOf.parent);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(oneofDescriptor, parent);
+    public Object identity() {
+        return oneofDescriptor;
     }
 }
@@ -2,19 +2,31 @@ package org.sudu.protogen.descriptors;
 
 import com.google.protobuf.Descriptors;
 import com.squareup.javapoet.ClassName;
-import org.sudu.protogen.Options;
 import org.sudu.protogen.utils.Name;
 
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 
 public class Service implements Descriptor {
 
     private final Descriptors.ServiceDescriptor serviceDescriptor;
 
-    public Service(Descriptors.ServiceDescriptor serviceDescriptor) {
+    private final DescriptorOptions.ServiceOptions options;
+
+    private File containingFile;
+
+    private List<? extends Method> methods;
+
+    Service(Descriptors.ServiceDescriptor serviceDescriptor, DescriptorOptions.ServiceOptions options) {
         this.serviceDescriptor = serviceDescriptor;
+        this.options = options;
+    }
+
+    void link(DescriptorRegistry registry) {
+        containingFile = registry.file(serviceDescriptor.getFile());
+        methods = serviceDescriptor.getMethods().stream()
+                .map(registry::method)
+                .toList();
     }
 
     public String getName() {
@@ -22,13 +34,11 @@ public class Service implements Descriptor {
     }
 
     public File getContainingFile() {
-        return new File(serviceDescriptor.getFile());
+        return containingFile;
     }
 
     public List<? extends Method> getMethods() {
-        return serviceDescriptor.getMethods().stream()
-                .map(Method::new)
-                .toList();
+        return methods;
     }
 
     public final boolean isAbstract() {
@@ -60,27 +70,19 @@ public class Service implements Descriptor {
     }
 
     protected Optional<Boolean> getAbstractOption() {
-        return Options.wrapExtension(serviceDescriptor.getOptions(), protogen.Options.abstract_);
+        return Optional.ofNullable(options.isAbstract());
     }
 
     protected Optional<Boolean> getGenerateOption() {
-        return Options.wrapExtension(serviceDescriptor.getOptions(), protogen.Options.genService);
+        return Optional.ofNullable(options.generate());
     }
 
     protected Optional<String> getNameOption() {
-        return Options.wrapExtension(serviceDescriptor.getOptions(), protogen.Options.serviceName);
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Service service = (Service) o;
-        return Objects.equals(serviceDescriptor, service.serviceDescriptor);
+        return Optional.ofNullable(options.name());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(serviceDescriptor);
+    public Object identity() {
+        return serviceDescriptor;
     }
 }
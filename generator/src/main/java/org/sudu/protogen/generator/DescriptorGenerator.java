@@ -2,34 +2,87 @@ package org.sudu.protogen.generator;
 
 import org.sudu.protogen.descriptors.Descriptor;
 
-import java.util.WeakHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
 
 public interface DescriptorGenerator<D extends Descriptor, T> {
 
     T generate(D descriptor);
 
-    default DescriptorGenerator<D, T> withCache() {
+    default CachedGenerator<D, T> withCache() {
         return new CachedGenerator<>(this);
     }
 
+    /**
+     * Generates every descriptor once, the following calls return the first result.
+     * <p>
+     * Results are keyed by {@link Descriptor#identity()}, the underlying protobuf descriptor.
+     * The cache lives as long as the generator, i.e. for one generation. When several threads ask for the same
+     * descriptor, one of them generates it and the others wait for its result. {@code null} results are cached too.
+     */
     class CachedGenerator<D extends Descriptor, T> implements DescriptorGenerator<D, T> {
 
-        private final WeakHashMap<D, T> cache;
+        private final Map<Object, Computation<T>> cache = new ConcurrentHashMap<>();
 
         private final DescriptorGenerator<D, T> generator;
 
-        public CachedGenerator(DescriptorGenerator<D, T> generator, WeakHashMap<D, T> cache) {
-            this.cache = cache;
-            this.generator = generator;
-        }
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
 
         public CachedGenerator(DescriptorGenerator<D, T> generator) {
-            this(generator, new WeakHashMap<>());
+            this.generator = generator;
         }
 
         public final T generate(D descriptor) {
-            return cache.computeIfAbsent(descriptor, generator::generate);
+            Object key = descriptor.identity();
+            Computation<T> computation = cache.get(key);
+            if (computation == null) {
+                Computation<T> created = new Computation<>(new FutureTask<>(() -> generator.generate(descriptor)), Thread.currentThread());
+                computation = cache.putIfAbsent(key, created);
+                if (computation == null) {
+                    misses.increment();
+                    created.task().run();
+                    return created.get(descriptor);
+                }
+            }
+            hits.increment();
+            return computation.get(descriptor);
+        }
+
+        public Statistics statistics() {
+            return new Statistics(hits.sum(), misses.sum(), cache.size());
+        }
+
+        private record Computation<T>(FutureTask<T> task, Thread owner) {
+
+            T get(Descriptor descriptor) {
+                if (!task.isDone() && owner == Thread.currentThread()) {
+                    // Waiting would never end, the descriptor depends on itself
+                    throw new IllegalStateException("Recursive generation of " + descriptor.identity());
+                }
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the generation of " + descriptor.identity(), e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                    if (e.getCause() instanceof Error error) throw error;
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
         }
     }
 
+    record Statistics(long hits, long misses, int size) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
 }
@@ -1,16 +1,26 @@
 package org.sudu.protogen.generator;
 
 import com.squareup.javapoet.TypeSpec;
+import org.jetbrains.annotations.Nullable;
 import org.sudu.protogen.config.Configuration;
+import org.sudu.protogen.config.VisibilityAnalysis;
 import org.sudu.protogen.descriptors.Enum;
 import org.sudu.protogen.descriptors.*;
 import org.sudu.protogen.generator.client.ClientGenerator;
 import org.sudu.protogen.generator.enumeration.EnumGenerator;
+import org.sudu.protogen.generator.field.AttributeVisibilityAnalyzerMultiProject;
 import org.sudu.protogen.generator.field.FieldGenerator;
 import org.sudu.protogen.generator.field.FieldProcessingResult;
 import org.sudu.protogen.generator.field.processors.*;
+import org.sudu.protogen.generator.field.visibility.BytecodeClassResolver;
+import org.sudu.protogen.generator.field.visibility.ClassResolver;
+import org.sudu.protogen.generator.field.visibility.CompilationUnitCache;
+import org.sudu.protogen.generator.field.visibility.SourceClassResolver;
+import org.sudu.protogen.generator.field.visibility.SourceTreeScanner;
+import org.sudu.protogen.generator.field.visibility.VisibilityCacheStore;
 import org.sudu.protogen.generator.message.MessageBuilderGenerator;
 import org.sudu.protogen.generator.message.MessageGenerator;
+import org.sudu.protogen.generator.profiling.GenerationProfile;
 import org.sudu.protogen.generator.server.ServiceGenerator;
 import org.sudu.protogen.generator.type.TypeModel;
 import org.sudu.protogen.generator.type.processors.DomainTypeProcessor;
@@ -18,14 +28,50 @@ import org.sudu.protogen.generator.type.processors.EmptyMessageProcessor;
 import org.sudu.protogen.generator.type.processors.RegisteredTypeProcessor;
 import org.sudu.protogen.generator.type.processors.TypeProcessor;
 
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
 public final class GenerationContext {
 
     private final Configuration configuration;
     private final GeneratorsHolder holder;
     private final TypeManager typeManager;
 
+    @Nullable
+    private final SharedCaches sharedCaches;
+
+    private final GenerationProfile profile;
+
+    private AttributeVisibilityAnalyzerMultiProject visibilityAnalyzer;
+
+    /**
+     * Taken when the analyzer is created, the caches may be shared with other runs and only this one is reported
+     */
+    private CompilationUnitCache.Statistics compilationUnitsAtStart;
+
+    private VisibilityCacheStore.Statistics cacheStoreAtStart;
+
+    private final Map<String, Set<GetterDecision>> getterDecisions = new ConcurrentHashMap<>();
+
     public GenerationContext(Configuration configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * @param sharedCaches the caches kept by a long-running generator, {@code null} to start cold
+     */
+    public GenerationContext(Configuration configuration, @Nullable SharedCaches sharedCaches) {
+        this(configuration, sharedCaches, GenerationProfile.disabled());
+    }
+
+    /**
+     * @param profile measures the phases of the run
+     */
+    public GenerationContext(Configuration configuration, @Nullable SharedCaches sharedCaches, GenerationProfile profile) {
         this.configuration = configuration;
+        this.sharedCaches = sharedCaches;
+        this.profile = profile;
         this.holder = new GeneratorsHolder();
         this.typeManager = new TypeManager();
     }
@@ -42,18 +88,147 @@ public final class GenerationContext {
         return typeManager;
     }
 
+    public GenerationProfile profile() {
+        return profile;
+    }
+
+    public boolean isVisibilityAnalysisEnabled() {
+        return configuration.visibilityAnalysis().enabled();
+    }
+
+    /**
+     * The analyzer indexes the configured roots on the first call and is shared by all the fields of the run.
+     * Callers are expected to check {@link #isVisibilityAnalysisEnabled()} first.
+     */
+    public synchronized AttributeVisibilityAnalyzerMultiProject visibilityAnalyzer() {
+        if (visibilityAnalyzer == null) {
+            VisibilityAnalysis settings = configuration.visibilityAnalysis();
+            List<ClassResolver> resolvers = new ArrayList<>();
+            if (!settings.classpath().isEmpty()) {
+                // Compiled classes are much cheaper to read, sources are only parsed for the classes missing there
+                resolvers.add(new BytecodeClassResolver(settings.classpath()));
+            }
+            Set<String> projectPaths = new LinkedHashSet<>();
+            settings.sourceRoots().forEach(root -> projectPaths.add(root.toString()));
+            for (Path workspace : settings.workspaces()) {
+                SourceTreeScanner.discoverSourceRoots(workspace).forEach(root -> projectPaths.add(root.toString()));
+            }
+            if (!projectPaths.isEmpty()) {
+                CompilationUnitCache compilationUnits = sharedCaches == null
+                        ? new CompilationUnitCache(settings.parsedSourceCacheSize())
+                        : sharedCaches.compilationUnits(settings.parsedSourceCacheSize());
+                compilationUnitsAtStart = compilationUnits.statistics();
+                resolvers.add(new SourceClassResolver(projectPaths, settings.engine(), compilationUnits));
+            }
+            Path cacheFile = settings.cacheFile();
+            VisibilityCacheStore cacheStore = null;
+            if (cacheFile != null) {
+                String fingerprint = settings.fingerprint();
+                cacheStore = sharedCaches == null
+                        ? VisibilityCacheStore.load(cacheFile, fingerprint)
+                        : sharedCaches.visibilityCacheStore(cacheFile, fingerprint);
+                cacheStoreAtStart = cacheStore.statistics();
+            }
+            visibilityAnalyzer = new AttributeVisibilityAnalyzerMultiProject(resolvers, cacheStore);
+        }
+        return visibilityAnalyzer;
+    }
+
+    /**
+     * Asks the visibility analyzer whether the attribute needs a getter and remembers the answer for the proto file
+     * of the field: the generated code of the file depends on it as much as on the proto.
+     */
+    public boolean needGetter(Field field, String className, String attributeName) {
+        boolean needGetter = visibilityAnalyzer().needGetter(className, attributeName);
+        getterDecisions.computeIfAbsent(field.getContainingMessage().getContainingFile().getName(), $ -> ConcurrentHashMap.newKeySet())
+                .add(new GetterDecision(className, attributeName, needGetter));
+        return needGetter;
+    }
+
+    /**
+     * @return the answers of the visibility analyzer the generation of the proto file relied on
+     */
+    public Set<GetterDecision> getterDecisions(String protoFile) {
+        return getterDecisions.getOrDefault(protoFile, Set.of());
+    }
+
+    /**
+     * Reports the caches of the analysis, persists what the run has learned, so that the next runs can reuse it,
+     * and releases the opened classpath
+     */
+    public synchronized void finishRun() {
+        if (visibilityAnalyzer != null) {
+            recordVisibilityStatistics();
+            visibilityAnalyzer.persistCache();
+            visibilityAnalyzer.close();
+            visibilityAnalyzer = null;
+        }
+    }
+
+    /**
+     * Reports what the caches of the analysis did during the run. A daemon serving several requests at the same time
+     * counts the lookups of the other requests too.
+     */
+    private void recordVisibilityStatistics() {
+        Map<String, DescriptorGenerator.Statistics> caches = new LinkedHashMap<>();
+        for (ClassResolver resolver : visibilityAnalyzer.getResolvers()) {
+            if (resolver instanceof SourceClassResolver sources) {
+                CompilationUnitCache.Statistics parsed = sources.getCompilationUnitCache().statistics().since(compilationUnitsAtStart);
+                caches.put("parsedSource", new DescriptorGenerator.Statistics(parsed.hits(), parsed.misses(), parsed.size()));
+                profile.count("parsedSourceEvictions", parsed.evictions());
+                profile.count("scannerFallbacks", sources.getScannerFallbacks());
+            }
+        }
+        VisibilityCacheStore cacheStore = visibilityAnalyzer.getCacheStore();
+        if (cacheStore != null) {
+            VisibilityCacheStore.Statistics stored = cacheStore.statistics().since(cacheStoreAtStart);
+            caches.put("visibilityStore", new DescriptorGenerator.Statistics(stored.hits(), stored.misses(), stored.classes()));
+            profile.count("staleVisibilityEntries", stored.staleEntries());
+        }
+        profile.recordCaches(caches);
+    }
+
+    /**
+     * Resolves the java types of the run. Every field and type goes through its processing chain once, the following
+     * calls, from any thread, return the first result.
+     */
     public class TypeManager {
 
-        private final FieldTypeProcessor fieldTypeProcessor = getFieldProcessingChain();
+        private final DescriptorGenerator.CachedGenerator<Field, TypeModel> fieldTypes =
+                new DescriptorGenerator.CachedGenerator<>(getFieldProcessingChain()::processType);
 
-        private final TypeProcessor typeProcessor = getTypeProcessor();
+        private final DescriptorGenerator.CachedGenerator<EnumOrMessage, TypeModel> types =
+                new DescriptorGenerator.CachedGenerator<>(getTypeProcessor()::processType);
 
+        /**
+         * @return {@code null} if the type has no java counterpart
+         */
         public TypeModel processType(EnumOrMessage enumOrMessage) {
-            return typeProcessor.processType(enumOrMessage);
+            GenerationProfile.Span span = profile.startResolution(enumOrMessage.getFullName());
+            try {
+                return types.generate(enumOrMessage);
+            } finally {
+                span.end();
+            }
         }
 
         public TypeModel processType(Field field) {
-            return fieldTypeProcessor.processType(field);
+            GenerationProfile.Span span = profile.startResolution(field.getFullName());
+            try {
+                return fieldTypes.generate(field);
+            } finally {
+                span.end();
+            }
+        }
+
+        /**
+         * @return cache statistics of the field and type resolution
+         */
+        public Map<String, DescriptorGenerator.Statistics> statistics() {
+            Map<String, DescriptorGenerator.Statistics> statistics = new LinkedHashMap<>();
+            statistics.put("fieldType", fieldTypes.statistics());
+            statistics.put("type", types.statistics());
+            return statistics;
         }
 
         public FieldTypeProcessor getFieldProcessingChain() {
@@ -77,12 +252,12 @@ public final class GenerationContext {
 
     public class GeneratorsHolder {
 
-        private final DescriptorGenerator<Field, FieldProcessingResult> fieldGenerator = new FieldGenerator(GenerationContext.this).withCache();
-        private final DescriptorGenerator<Message, TypeSpec> messageGenerator = new MessageGenerator(GenerationContext.this).withCache();
-        private final DescriptorGenerator<Message, TypeSpec> messageBuilderGenerator = new MessageBuilderGenerator(GenerationContext.this).withCache();
-        private final DescriptorGenerator<Enum, TypeSpec> enumGenerator = new EnumGenerator(GenerationContext.this).withCache();
-        private final DescriptorGenerator<Service, TypeSpec> clientGenerator = new ClientGenerator(GenerationContext.this).withCache();
-        private final DescriptorGenerator<Service, TypeSpec> serviceGenerator = new ServiceGenerator(GenerationContext.this).withCache();
+        private final DescriptorGenerator.CachedGenerator<Field, FieldProcessingResult> fieldGenerator = new FieldGenerator(GenerationContext.this).withCache();
+        private final DescriptorGenerator.CachedGenerator<Message, TypeSpec> messageGenerator = new MessageGenerator(GenerationContext.this).withCache();
+        private final DescriptorGenerator.CachedGenerator<Message, TypeSpec> messageBuilderGenerator = new MessageBuilderGenerator(GenerationContext.this).withCache();
+        private final DescriptorGenerator.CachedGenerator<Enum, TypeSpec> enumGenerator = new EnumGenerator(GenerationContext.this).withCache();
+        private final DescriptorGenerator.CachedGenerator<Service, TypeSpec> clientGenerator = new ClientGenerator(GenerationContext.this).withCache();
+        private final DescriptorGenerator.CachedGenerator<Service, TypeSpec> serviceGenerator = new ServiceGenerator(GenerationContext.this).withCache();
 
         public FieldProcessingResult generate(Field field) {
             return fieldGenerator.generate(field);
@@ -113,5 +288,22 @@ public final class GenerationContext {
         public TypeSpec generateService(Service service) {
             return serviceGenerator.generate(service);
         }
+
+        /**
+         * @return cache statistics of every generator, by generator name
+         */
+        public Map<String, DescriptorGenerator.Statistics> statistics() {
+            Map<String, DescriptorGenerator.Statistics> statistics = new LinkedHashMap<>();
+            statistics.put("field", fieldGenerator.statistics());
+            statistics.put("message", messageGenerator.statistics());
+            statistics.put("builder", messageBuilderGenerator.statistics());
+            statistics.put("enum", enumGenerator.statistics());
+            statistics.put("client", clientGenerator.statistics());
+            statistics.put("service", serviceGenerator.statistics());
+            return statistics;
+        }
+    }
+
+    public record GetterDecision(String className, String attributeName, boolean needGetter) {
     }
 }
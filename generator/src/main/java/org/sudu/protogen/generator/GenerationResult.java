@@ -4,6 +4,9 @@ import java.util.List;
 
 public record GenerationResult(List<File> generatedFiles) {
 
-    public record File(String packageName, String fileName, String content) {
+    /**
+     * @param protoFile the name of the proto file the java file was generated from
+     */
+    public record File(String packageName, String fileName, String content, String protoFile) {
     }
 }
@@ -6,14 +6,30 @@ import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.sudu.protogen.descriptors.EnumOrMessage;
 import org.sudu.protogen.descriptors.File;
+import org.sudu.protogen.descriptors.Message;
 import org.sudu.protogen.descriptors.Service;
+import org.sudu.protogen.generator.profiling.GenerationProfile;
+import org.sudu.protogen.generator.profiling.Phase;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Generator {
 
+    /**
+     * How many units a thread of the pool may render ahead of the consumer, the rendered files wait in memory
+     */
+    private static final int RUN_AHEAD_PER_THREAD = 4;
+
     private final GenerationContext context;
 
     private final List<? extends File> filesToGenerate;
@@ -25,46 +41,97 @@ public class Generator {
 
     @NotNull
     public GenerationResult generate() {
-        List<GenerationResult.File> generatedFiles = generateFiles().stream()
-                .map(this::javaFileToResult)
-                .toList();
-        return new GenerationResult(generatedFiles);
+        List<GenerationResult.File> files = new ArrayList<>();
+        generate(files::add);
+        return new GenerationResult(files);
     }
 
-    private GenerationResult.File javaFileToResult(JavaFile gen) {
+    /**
+     * Hands every file to the consumer as soon as it is rendered, so that it can be written out and forgotten.
+     * With a parallelism above 1 the types are built and rendered by a dedicated fork-join pool, the consumer is
+     * still called by the calling thread, and only a few units per thread are rendered ahead of it. The files come
+     * in the same order in both modes: by file, then types before services.
+     */
+    public void generate(@NotNull Consumer<GenerationResult.File> consumer) {
+        List<GenerationUnit> units = collectUnits();
+        int parallelism = context.configuration().parallelism();
+        if (parallelism <= 1 || units.size() <= 1) {
+            units.forEach(unit -> consumer.accept(generateUnit(unit)));
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int window = parallelism * RUN_AHEAD_PER_THREAD;
+        Deque<Future<GenerationResult.File>> pending = new ArrayDeque<>(window);
+        Iterator<GenerationUnit> remaining = units.iterator();
+        try {
+            while (remaining.hasNext() || !pending.isEmpty()) {
+                while (remaining.hasNext() && pending.size() < window) {
+                    GenerationUnit unit = remaining.next();
+                    pending.add(pool.submit(() -> generateUnit(unit)));
+                }
+                consumer.accept(pending.remove().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during the generation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // The units still pending after a failure are not needed anymore
+            pool.shutdownNow();
+        }
+    }
+
+    private GenerationResult.File generateUnit(GenerationUnit unit) {
+        GenerationProfile profile = context.profile();
+        GenerationProfile.Span building = profile.start(unit.kind().phase, unit.name());
+        TypeSpec typeSpec = unit.typeSpec().get();
+        GenerationProfile.Measurement measurement = building.end();
+        profile.count(unit.kind().count, 1);
+        if (unit.kind() == UnitKind.MESSAGE) {
+            profile.recordMessage(unit.name(), unit.protoFile(), measurement);
+        }
+
+        GenerationProfile.Span rendering = profile.start(Phase.RENDERING, unit.name());
+        JavaFile javaFile = JavaFile.builder(unit.packageName(), typeSpec)
+                .indent(getIndentation())
+                .build();
+        GenerationResult.File result = javaFileToResult(javaFile, unit.protoFile());
+        rendering.end();
+        return result;
+    }
+
+    private GenerationResult.File javaFileToResult(JavaFile gen, String protoFile) {
         StringBuilder content = new StringBuilder();
         try {
             gen.writeTo(content);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return new GenerationResult.File(gen.packageName, gen.typeSpec.name, content.toString());
+        return new GenerationResult.File(gen.packageName, gen.typeSpec.name, content.toString(), protoFile);
     }
 
-    private List<JavaFile> generateFiles() {
-        List<JavaFile> result = new ArrayList<>();
+    /**
+     * Lists the types to generate without generating them yet
+     */
+    private List<GenerationUnit> collectUnits() {
+        List<GenerationUnit> result = new ArrayList<>();
 
         for (File file : filesToGenerate) {
             String packageName = file.getGeneratePackage();
             for (EnumOrMessage type : file.getNested()) {
                 if (!type.doGenerate()) continue;
-                result.add(JavaFile.builder(packageName, context.generatorsHolder().generate(type))
-                        .indent(getIndentation())
-                        .build()
-                );
+                UnitKind kind = type instanceof Message ? UnitKind.MESSAGE : UnitKind.ENUM;
+                result.add(new GenerationUnit(kind, type.getFullName(), file.getName(), packageName, () -> context.generatorsHolder().generate(type)));
             }
             for (Service service : file.getServices()) {
                 if (!service.doGenerate()) {
                     continue;
                 }
-                TypeSpec clientTypeSpec = context.generatorsHolder().generateClient(service);
-                result.add(JavaFile.builder(packageName, clientTypeSpec)
-                        .indent(getIndentation())
-                        .build());
-                TypeSpec serviceTypeSpec = context.generatorsHolder().generateService(service);
-                result.add(JavaFile.builder(packageName, serviceTypeSpec)
-                        .indent(getIndentation())
-                        .build());
+                result.add(new GenerationUnit(UnitKind.CLIENT, service.getName(), file.getName(), packageName, () -> context.generatorsHolder().generateClient(service)));
+                result.add(new GenerationUnit(UnitKind.SERVICE, service.getName(), file.getName(), packageName, () -> context.generatorsHolder().generateService(service)));
             }
         }
         return result;
@@ -73,4 +140,26 @@ public class Generator {
     private String getIndentation() {
         return StringUtils.repeat(" ", context.configuration().indentationSize());
     }
+
+    private record GenerationUnit(UnitKind kind, String name, String protoFile, String packageName, Supplier<TypeSpec> typeSpec) {
+    }
+
+    private enum UnitKind {
+        MESSAGE(Phase.TYPE_SPECS, "messages"),
+        ENUM(Phase.TYPE_SPECS, "enums"),
+        CLIENT(Phase.SERVICE_SPECS, "clients"),
+        SERVICE(Phase.SERVICE_SPECS, "services");
+
+        final Phase phase;
+
+        /**
+         * The name of the count in the report
+         */
+        final String count;
+
+        UnitKind(Phase phase, String count) {
+            this.phase = phase;
+            this.count = count;
+        }
+    }
 }
@@ -0,0 +1,212 @@
+package org.sudu.protogen.generator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.descriptors.File;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the generated files, replayed by the next runs for the proto files whose inputs didn't change.
+ * <p>
+ * The inputs of a proto file are fingerprinted: the version of the generator, the yaml configuration, the file and
+ * its transitive imports. {@code manifests/<fingerprint>} lists the java files generated from the proto file and the
+ * answers of the visibility analysis the generation relied on. The contents of the java files are stored once under
+ * {@code objects/<hash of the content>}. Everything is written atomically, runs sharing the directory only ever see
+ * complete entries.
+ */
+public final class OutputCache {
+
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String CONFIGURATION_SUFFIX = "protogen.yaml";
+
+    private final Path manifests;
+
+    private final Path objects;
+
+    private final byte[] seed;
+
+    private final Map<File, byte[]> protoDigests = new ConcurrentHashMap<>();
+
+    /**
+     * @param configurationDirectory the directory of the yaml configuration, {@code null} for the default one
+     */
+    public OutputCache(@NotNull Path directory, @Nullable Path configurationDirectory) throws IOException {
+        this.manifests = directory.resolve("manifests");
+        this.objects = directory.resolve("objects");
+        MessageDigest digest = sha256();
+        update(digest, FORMAT_VERSION);
+        update(digest, generatorVersion());
+        if (configurationDirectory != null) {
+            List<Path> configs;
+            try (Stream<Path> files = Files.list(configurationDirectory)) {
+                configs = files.filter(file -> file.getFileName().toString().endsWith(CONFIGURATION_SUFFIX)).sorted().toList();
+            }
+            for (Path config : configs) {
+                update(digest, config.getFileName().toString());
+                digest.update(Files.readAllBytes(config));
+            }
+        }
+        this.seed = digest.digest();
+    }
+
+    @NotNull
+    public String fingerprint(@NotNull File file) {
+        MessageDigest digest = sha256();
+        digest.update(seed);
+        update(digest, file.getName());
+        SortedMap<String, File> closure = new TreeMap<>();
+        collectClosure(file, closure);
+        closure.forEach((name, dependency) -> {
+            update(digest, name);
+            digest.update(protoDigest(dependency));
+        });
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return {@code null} if nothing is cached for the fingerprint or the entry can't be used
+     */
+    @Nullable
+    public Entry load(@NotNull String fingerprint) {
+        Path manifest = manifests.resolve(fingerprint);
+        if (!Files.isRegularFile(manifest)) {
+            return null;
+        }
+        try {
+            List<CachedFile> files = new ArrayList<>();
+            Set<GenerationContext.GetterDecision> getterDecisions = new HashSet<>();
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", -1);
+                switch (parts[0]) {
+                    case "file" -> files.add(new CachedFile(parts[1], parts[2], parts[3]));
+                    case "getter" -> getterDecisions.add(
+                            new GenerationContext.GetterDecision(parts[1], parts[2], Boolean.parseBoolean(parts[3])));
+                    default -> throw new IOException("Unexpected line " + line);
+                }
+            }
+            for (CachedFile file : files) {
+                if (!Files.isRegularFile(objects.resolve(file.contentHash()))) {
+                    return null;
+                }
+            }
+            return new Entry(files, getterDecisions);
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Ignoring the output cache entry " + manifest + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @NotNull
+    public String readContent(@NotNull CachedFile file) throws IOException {
+        return Files.readString(objects.resolve(file.contentHash()), StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    public CachedFile storeContent(@NotNull GenerationResult.File file) throws IOException {
+        byte[] content = file.content().getBytes(StandardCharsets.UTF_8);
+        String hash = HexFormat.of().formatHex(sha256().digest(content));
+        Path object = objects.resolve(hash);
+        if (!Files.exists(object)) {
+            writeAtomically(object, content);
+        }
+        return new CachedFile(file.packageName(), file.fileName(), hash);
+    }
+
+    public void store(@NotNull String fingerprint, @NotNull List<CachedFile> files,
+                      @NotNull Set<GenerationContext.GetterDecision> getterDecisions) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (CachedFile file : files) {
+            manifest.append("file\t").append(file.packageName()).append('\t').append(file.fileName())
+                    .append('\t').append(file.contentHash()).append('\n');
+        }
+        getterDecisions.stream()
+                .sorted(Comparator.comparing(GenerationContext.GetterDecision::className)
+                        .thenComparing(GenerationContext.GetterDecision::attributeName))
+                .forEach(decision -> manifest.append("getter\t").append(decision.className()).append('\t')
+                        .append(decision.attributeName()).append('\t').append(decision.needGetter()).append('\n'));
+        writeAtomically(manifests.resolve(fingerprint), manifest.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void collectClosure(File file, Map<String, File> closure) {
+        if (closure.putIfAbsent(file.getName(), file) == null) {
+            file.getDependencies().forEach(dependency -> collectClosure(dependency, closure));
+        }
+    }
+
+    private byte[] protoDigest(File file) {
+        return protoDigests.computeIfAbsent(file, $ -> sha256().digest(file.toProto().toByteArray()));
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * The version of the released jar. Development builds have none, the classes themselves tell whether they changed.
+     */
+    private static String generatorVersion() throws IOException {
+        String version = OutputCache.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        CodeSource codeSource = OutputCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            return "unknown";
+        }
+        Path location;
+        try {
+            location = Path.of(codeSource.getLocation().toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return codeSource.getLocation().toString();
+        }
+        if (Files.isRegularFile(location)) {
+            return location + ":" + Files.size(location) + ":" + Files.getLastModifiedTime(location).toMillis();
+        }
+        try (Stream<Path> files = Files.walk(location)) {
+            long lastModified = files.mapToLong(file -> file.toFile().lastModified()).max().orElse(0);
+            return location + ":" + lastModified;
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param getterDecisions the generated code is only valid while the visibility analysis gives the same answers
+     */
+    public record Entry(@NotNull List<CachedFile> files, @NotNull Set<GenerationContext.GetterDecision> getterDecisions) {
+    }
+
+    public record CachedFile(@NotNull String packageName, @NotNull String fileName, @NotNull String contentHash) {
+    }
+}
@@ -0,0 +1,87 @@
+package org.sudu.protogen.generator;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.config.Configuration;
+import org.sudu.protogen.generator.field.visibility.CompilationUnitCache;
+import org.sudu.protogen.generator.field.visibility.VisibilityCacheStore;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * What a long-running generator keeps warm between the requests it serves. Each request still gets its own
+ * {@link GenerationContext}, only the caches that check their entries against the disk are shared:
+ * the yaml configurations, the parsed sources and the visibility cache stores.
+ */
+public final class SharedCaches {
+
+    private static final String CONFIGURATION_SUFFIX = "protogen.yaml";
+
+    private final Map<Path, ParsedConfiguration> configurations = new ConcurrentHashMap<>();
+
+    private final Map<Path, VisibilityCacheStore> cacheStores = new ConcurrentHashMap<>();
+
+    @Nullable
+    private CompilationUnitCache compilationUnits;
+
+    /**
+     * Parses the configuration of the directory again only if one of its yaml files was added, removed or modified
+     */
+    @NotNull
+    public Configuration configuration(@NotNull Path directory, @NotNull Function<Path, Configuration> parser) {
+        Path key = directory.toAbsolutePath().normalize();
+        List<String> stamps = configurationStamps(key);
+        ParsedConfiguration parsed = configurations.get(key);
+        if (parsed == null || !parsed.stamps().equals(stamps)) {
+            parsed = new ParsedConfiguration(stamps, parser.apply(directory));
+            configurations.put(key, parsed);
+        }
+        return parsed.configuration();
+    }
+
+    /**
+     * The store is loaded from the disk once, and again when the settings of the analysis change.
+     * Its entries are checked against the sources again by every request.
+     */
+    @NotNull
+    public VisibilityCacheStore visibilityCacheStore(@NotNull Path location, @NotNull String configurationFingerprint) {
+        VisibilityCacheStore store = cacheStores.compute(location.toAbsolutePath().normalize(), (key, loaded) ->
+                loaded != null && loaded.getConfigurationFingerprint().equals(configurationFingerprint)
+                        ? loaded
+                        : VisibilityCacheStore.load(key, configurationFingerprint));
+        store.revalidate();
+        return store;
+    }
+
+    /**
+     * The parsed sources are kept between the requests, they are only dropped when a request asks for another size
+     */
+    @NotNull
+    public synchronized CompilationUnitCache compilationUnits(int maxEntries) {
+        if (compilationUnits == null || compilationUnits.statistics().maxEntries() != maxEntries) {
+            compilationUnits = new CompilationUnitCache(maxEntries);
+        }
+        return compilationUnits;
+    }
+
+    private static List<String> configurationStamps(Path directory) {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(CONFIGURATION_SUFFIX));
+        if (files == null) {
+            return List.of();
+        }
+        return Arrays.stream(files)
+                .sorted(Comparator.comparing(File::getName))
+                .map(file -> file.getName() + ":" + file.length() + ":" + file.lastModified())
+                .toList();
+    }
+
+    private record ParsedConfiguration(List<String> stamps, Configuration configuration) {
+    }
+}
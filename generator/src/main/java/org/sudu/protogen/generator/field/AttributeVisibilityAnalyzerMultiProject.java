@@ -1,316 +1,282 @@
 package org.sudu.protogen.generator.field;
 
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.ImportDeclaration;
-import com.github.javaparser.ast.PackageDeclaration;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.FieldDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
-
-import java.io.File;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.generator.field.visibility.ClassDeclaration;
+import org.sudu.protogen.generator.field.visibility.ClassResolver;
+import org.sudu.protogen.generator.field.visibility.CompilationUnitCache;
+import org.sudu.protogen.generator.field.visibility.FieldVisibility;
+import org.sudu.protogen.generator.field.visibility.SourceClassResolver;
+import org.sudu.protogen.generator.field.visibility.SourceTreeScanner;
+import org.sudu.protogen.generator.field.visibility.VisibilityCacheStore;
+import org.sudu.protogen.generator.field.visibility.Visibility;
+
+import java.io.IOException;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class AttributeVisibilityAnalyzerMultiProject {
+public class AttributeVisibilityAnalyzerMultiProject implements AutoCloseable {
 
     /**
-     * Auto-discover Java projects in a workspace folder
+     * Asked in order, the first one knowing a class wins
      */
-    public static Set<String> discoverJavaProjects(String workspacePath) {
-        Set<String> projectPaths = new HashSet<>();
-        File workspace = new File(workspacePath);
+    private final List<ClassResolver> resolvers;
 
-        if (!workspace.isDirectory()) {
-            System.err.println("Workspace path is not a directory: " + workspacePath);
-            return projectPaths;
-        }
+    @Nullable
+    private final VisibilityCacheStore cacheStore;
 
-        File[] projects = workspace.listFiles();
-        if (projects == null) return projectPaths;
+    private final Map<String, Map<String, FieldVisibility>> resolvedClasses = new ConcurrentHashMap<>();
 
-        for (File project : projects) {
-            if (project.isDirectory()) {
-                // Check common Java project structures
-                File srcMain = new File(project, "src/main/java");        // Maven structure
-                File src = new File(project, "src");                      // Eclipse structure
+    private final Set<String> missingClasses = ConcurrentHashMap.newKeySet();
 
-                if (srcMain.exists() && srcMain.isDirectory()) {
-                    projectPaths.add(srcMain.getAbsolutePath());
-                    System.out.println("Found Maven project: " + srcMain.getAbsolutePath());
-                } else if (src.exists() && src.isDirectory() && containsJavaFiles(src)) {
-                    projectPaths.add(src.getAbsolutePath());
-                    System.out.println("Found Eclipse project: " + src.getAbsolutePath());
-                }
-            }
-        }
+    /**
+     * Flattened tables by qualified class name, including the base classes met while resolving the requested ones
+     */
+    private final Map<String, EffectiveFields> effectiveFields = new ConcurrentHashMap<>();
 
+    /**
+     * Auto-discover Java projects in a workspace folder
+     */
+    public static Set<String> discoverJavaProjects(String workspacePath) {
+        Set<String> projectPaths = new LinkedHashSet<>();
+        for (Path root : SourceTreeScanner.discoverSourceRoots(Path.of(workspacePath))) {
+            projectPaths.add(root.toString());
+        }
         return projectPaths;
     }
 
     /**
-     * Check if a directory contains Java files (directly or in subdirectories)
+     * The analyzer is meant to be reused for every lookup of a generation run, project paths are indexed once
      */
-    private static boolean containsJavaFiles(File dir) {
-        File[] files = dir.listFiles();
-        if (files == null) return false;
-
-        for (File file : files) {
-            if (file.isFile() && file.getName().endsWith(".java")) {
-                return true;
-            } else if (file.isDirectory() && containsJavaFiles(file)) {
-                return true;
-            }
-        }
-        return false;
+    public AttributeVisibilityAnalyzerMultiProject(Set<String> projectPaths) {
+        this(projectPaths, new CompilationUnitCache(), null);
     }
 
     /**
-     * Main method with multiple project paths
+     * @param cacheStore results of the previous runs, classes found there are not parsed again. The project paths
+     *                   are still indexed, to check what the names stand for now
      */
-    public static boolean needGetter(String className, String attributeName, Set<String> projectPaths) throws Exception {
-        File classFile = findJavaFileForClass(className, projectPaths);
-        if (classFile == null) {
-            throw new Exception("Class file not found for class: " + className + " in any of the provided project paths");
-        }
-
-        return analyzeClassRecursive(classFile, className, attributeName, projectPaths, false);
+    public AttributeVisibilityAnalyzerMultiProject(Set<String> projectPaths, CompilationUnitCache compilationUnitCache,
+                                                   @Nullable VisibilityCacheStore cacheStore) {
+        this(List.of(new SourceClassResolver(projectPaths, compilationUnitCache)), cacheStore);
     }
 
     /**
-     * Backward compatibility method for single path
+     * @param resolvers  where the classes are looked for, in order of preference
+     * @param cacheStore results of the previous runs, classes found there are not read again
      */
-    public static boolean needGetter(String className, String attributeName, String singlePath) throws Exception {
-        Set<String> paths = new HashSet<>();
-        paths.add(singlePath);
-        return needGetter(className, attributeName, paths);
+    public AttributeVisibilityAnalyzerMultiProject(List<ClassResolver> resolvers, @Nullable VisibilityCacheStore cacheStore) {
+        this.resolvers = List.copyOf(resolvers);
+        this.cacheStore = cacheStore;
     }
 
-    private static boolean analyzeClassRecursive(File file, String className, String attributeName, Set<String> projectPaths, boolean isInSuperclass) throws Exception {
-        CompilationUnit cu = StaticJavaParser.parse(file);
-        Optional<ClassOrInterfaceDeclaration> clazzOpt = cu.getClassByName(className);
-        if (clazzOpt.isEmpty()) {
-            throw new Exception("Class not found in file: " + file.getName());
-        }
-
-        ClassOrInterfaceDeclaration clazz = clazzOpt.get();
-
-        // Check if the attribute is declared in this class
-        for (FieldDeclaration field : clazz.getFields()) {
-            for (VariableDeclarator var : field.getVariables()) {
-                if (var.getNameAsString().equals(attributeName)) {
-                    if (!isInSuperclass) {
-                        return false; // Declared in same class, no getter needed
-                    } else {
-                        // Inherited field - check visibility
-                        return field.isPrivate() || field.isProtected();
-                    }
-                }
-            }
-        }
-
-        // Check superclass if exists
-        if (clazz.getExtendedTypes().isNonEmpty()) {
-            ClassOrInterfaceType superClassType = clazz.getExtendedTypes(0);
-            String superClassName = superClassType.getNameAsString();
+    public List<ClassResolver> getResolvers() {
+        return resolvers;
+    }
 
-            // Find superclass file using optimized multi-project approach
-            File superClassFile = findSuperClassFile(cu, superClassName, file.getParentFile(), projectPaths);
+    @Nullable
+    public VisibilityCacheStore getCacheStore() {
+        return cacheStore;
+    }
 
-            if (superClassFile != null) {
-                return analyzeClassRecursive(superClassFile, superClassName, attributeName, projectPaths, true);
-            } else {
-                // Fallback to reflection for system classes
-                return handleReflectionFallback(superClassName, attributeName);
-            }
+    /**
+     * Writes the classes analyzed during this run to the cache store, if there is one
+     */
+    public void persistCache() {
+        if (cacheStore == null) return;
+        try {
+            cacheStore.save();
+        } catch (IOException e) {
+            System.err.println("Unable to write the visibility cache " + cacheStore.getLocation() + ": " + e.getMessage());
         }
-
-        return false; // Attribute not found in hierarchy
     }
 
     /**
-     * Optimized method to find superclass file using import statements across multiple projects
+     * Releases the resources held by the resolvers, like the opened jars of the classpath
      */
-    private static File findSuperClassFile(CompilationUnit cu, String superClassName, File currentClassDir, Set<String> projectPaths) {
-        // Build import map for quick lookup
-        Map<String, String> importMap = buildImportMap(cu);
-
-        // Get current package
-        String currentPackage = getCurrentPackage(cu);
-
-        // Try to find in each project path
-        for (String projectPath : projectPaths) {
-            String superClassPath = determineSuperClassPath(superClassName, importMap, currentPackage, currentClassDir, projectPath);
-
-            if (superClassPath != null) {
-                File superClassFile = new File(superClassPath);
-                if (superClassFile.exists()) {
-                    return superClassFile;
+    @Override
+    public void close() {
+        for (ClassResolver resolver : resolvers) {
+            if (resolver instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    System.err.println("Failed to close the class resolver: " + e.getMessage());
                 }
             }
         }
-
-        return null;
     }
 
     /**
-     * Build a map of class names to their full import paths
+     * Checks whether the attribute of the class is inherited from a superclass that hides it.
+     * Classes that can't be resolved have no such attribute.
      */
-    private static Map<String, String> buildImportMap(CompilationUnit cu) {
-        Map<String, String> importMap = new HashMap<>();
-
-        for (ImportDeclaration importDecl : cu.getImports()) {
-            if (!importDecl.isAsterisk()) {
-                String fullImport = importDecl.getNameAsString();
-                String className = getClassNameFromImport(fullImport);
-                importMap.put(className, fullImport);
-            }
-        }
-
-        return importMap;
+    public boolean needGetter(String className, String attributeName) {
+        Map<String, FieldVisibility> fields = findFields(className);
+        FieldVisibility field = fields == null ? null : fields.get(attributeName);
+        return field != null && field.needGetter();
     }
 
     /**
-     * Get current package name from CompilationUnit
+     * Same as {@link #resolveFields(String)}, but a class that can't be resolved is reported once
+     * and is not looked for again by this analyzer
+     *
+     * @return {@code null} if the class can't be resolved
      */
-    private static String getCurrentPackage(CompilationUnit cu) {
-        Optional<PackageDeclaration> packageDecl = cu.getPackageDeclaration();
-        return packageDecl.map(pkg -> pkg.getNameAsString()).orElse("");
+    @Nullable
+    public Map<String, FieldVisibility> findFields(String className) {
+        if (missingClasses.contains(className)) {
+            return null;
+        }
+        try {
+            return resolveFields(className);
+        } catch (Exception e) {
+            if (missingClasses.add(className)) {
+                System.err.println("Skipping the visibility analysis of " + className + ": " + e.getMessage());
+            }
+            return null;
+        }
     }
 
     /**
-     * Determine the file path for the superclass within a specific project
+     * Returns every field of the flattened class hierarchy, the nearest declaration of a name wins.
+     * The table of every class of the hierarchy is built once, from the table of its superclass,
+     * so classes sharing base classes don't walk them again.
      */
-    private static String determineSuperClassPath(String superClassName, Map<String, String> importMap,
-                                                  String currentPackage, File currentClassDir, String projectPath) {
-
-        // Case 1: Explicit import exists
-        if (importMap.containsKey(superClassName)) {
-            String fullImport = importMap.get(superClassName);
-            return convertImportToFilePath(fullImport, projectPath);
+    public Map<String, FieldVisibility> resolveFields(String className) throws Exception {
+        Map<String, FieldVisibility> resolved = resolvedClasses.get(className);
+        if (resolved != null) {
+            return resolved;
         }
-
-        // Case 2: Same package (no import needed)
-        if (!currentPackage.isEmpty()) {
-            String samePkgPath = convertPackageToFilePath(currentPackage, superClassName, projectPath);
-            File samePkgFile = new File(samePkgPath);
-            if (samePkgFile.exists()) {
-                return samePkgPath;
+        // Entries are keyed by the requested name, which may stand for another class since they were stored
+        ClassDeclaration.Source source = cacheStore == null ? null : locate(className);
+        if (source != null) {
+            resolved = cacheStore.lookup(className, source, this::isUnresolved);
+            if (resolved != null) {
+                resolvedClasses.put(className, resolved);
+                return resolved;
             }
         }
-
-        // Case 3: Same directory as current class (but ensure it's within the project)
-        File sameDir = new File(currentClassDir, superClassName + ".java");
-        if (sameDir.exists() && sameDir.getAbsolutePath().startsWith(projectPath)) {
-            return sameDir.getAbsolutePath();
+        ClassDeclaration declaration = findDeclaration(className);
+        if (declaration == null) {
+            throw new Exception("Class file not found for class: " + className + " in the configured source roots or classpath");
         }
-
-        // Case 4: Check if it's a fully qualified name in extends clause
-        if (superClassName.contains(".")) {
-            return convertImportToFilePath(superClassName, projectPath);
+        EffectiveFields effective = effectiveFields(declaration, new HashSet<>());
+        resolved = effective.fields();
+        resolvedClasses.put(className, resolved);
+        if (cacheStore != null) {
+            cacheStore.store(className, effective.hierarchy(), effective.unresolvedSuperclasses(), resolved);
         }
-
-        return null;
+        return resolved;
     }
 
     /**
-     * Convert import statement to file path within a project
+     * Main method with multiple project paths
      */
-    private static String convertImportToFilePath(String fullImport, String projectPath) {
-        String relativePath = fullImport.replace(".", File.separator) + ".java";
-        return new File(projectPath, relativePath).getAbsolutePath();
+    public static boolean needGetter(String className, String attributeName, Set<String> projectPaths) throws Exception {
+        FieldVisibility field = new AttributeVisibilityAnalyzerMultiProject(projectPaths).resolveFields(className).get(attributeName);
+        return field != null && field.needGetter();
     }
 
     /**
-     * Convert package name to file path for a class within a project
+     * Backward compatibility method for single path
      */
-    private static String convertPackageToFilePath(String packageName, String className, String projectPath) {
-        String packagePath = packageName.replace(".", File.separator);
-        String relativePath = packagePath + File.separator + className + ".java";
-        return new File(projectPath, relativePath).getAbsolutePath();
+    public static boolean needGetter(String className, String attributeName, String singlePath) throws Exception {
+        Set<String> paths = new HashSet<>();
+        paths.add(singlePath);
+        return needGetter(className, attributeName, paths);
     }
 
     /**
-     * Extract class name from full import path
+     * Whether none of the resolvers knows the class, as when its stored hierarchy was resolved
      */
-    private static String getClassNameFromImport(String fullImport) {
-        int lastDot = fullImport.lastIndexOf('.');
-        return (lastDot >= 0) ? fullImport.substring(lastDot + 1) : fullImport;
+    private boolean isUnresolved(String className) {
+        try {
+            return locate(className) == null;
+        } catch (Exception e) {
+            return false;
+        }
     }
 
-    /**
-     * Handle reflection fallback for system classes
-     */
-    private static boolean handleReflectionFallback(String superClassName, String attributeName) {
-        try {
-            Class<?> superClass = Class.forName(superClassName);
-            Field field = findFieldReflectively(superClass, attributeName);
-            if (field != null) {
-                int modifiers = field.getModifiers();
-                return Modifier.isPrivate(modifiers) || Modifier.isProtected(modifiers);
+    @Nullable
+    private ClassDeclaration.Source locate(String className) throws Exception {
+        for (ClassResolver resolver : resolvers) {
+            ClassDeclaration.Source source = resolver.locate(className);
+            if (source != null) {
+                return source;
             }
-        } catch (ClassNotFoundException e) {
-            System.err.println("Could not load superclass by reflection: " + superClassName);
         }
-        return false;
+        return null;
     }
 
-    /**
-     * Find field using reflection across class hierarchy
-     */
-    private static Field findFieldReflectively(Class<?> clazz, String fieldName) {
-        Class<?> currentClass = clazz;
-        while (currentClass != null) {
-            try {
-                return currentClass.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                currentClass = currentClass.getSuperclass();
+    @Nullable
+    private ClassDeclaration findDeclaration(String className) throws Exception {
+        for (ClassResolver resolver : resolvers) {
+            ClassDeclaration declaration = resolver.resolve(className);
+            if (declaration != null) {
+                return declaration;
             }
         }
         return null;
     }
 
     /**
-     * Find Java file across multiple project paths
+     * Builds the table of the class by merging the table of its superclass, which is built first if needed
+     *
+     * @param visiting the classes of the hierarchy being built, to stop on cyclic declarations
      */
-    private static File findJavaFileForClass(String className, Set<String> projectPaths) {
-        for (String projectPath : projectPaths) {
-            File result = findJavaFileForClass(className, new File(projectPath));
-            if (result != null) {
-                return result;
+    private EffectiveFields effectiveFields(ClassDeclaration declaration, Set<String> visiting) throws Exception {
+        EffectiveFields known = effectiveFields.get(declaration.qualifiedName());
+        if (known != null) {
+            return known;
+        }
+        visiting.add(declaration.qualifiedName());
+        Map<String, FieldVisibility> fields = new LinkedHashMap<>();
+        List<ClassDeclaration.Source> hierarchy = new ArrayList<>();
+        hierarchy.add(declaration.source());
+        Set<String> unresolvedSuperclasses = new LinkedHashSet<>();
+        // Fields declared closer to the analyzed class shadow the ones of its superclasses
+        for (ClassDeclaration.DeclaredField field : declaration.fields()) {
+            fields.putIfAbsent(field.name(),
+                    new FieldVisibility(field.name(), declaration.qualifiedName(), field.visibility(), false));
+        }
+        String superClassName = declaration.superclassName();
+        if (superClassName != null) {
+            ClassDeclaration superClass = findDeclaration(superClassName);
+            if (superClass == null) {
+                // Fallback to reflection for system classes
+                collectFieldsReflectively(superClassName, fields);
+                unresolvedSuperclasses.add(superClassName);
+            } else if (!visiting.contains(superClass.qualifiedName())) {
+                EffectiveFields parent = effectiveFields(superClass, visiting);
+                parent.fields().forEach((name, field) -> fields.putIfAbsent(name, field.asInherited()));
+                hierarchy.addAll(parent.hierarchy());
+                unresolvedSuperclasses.addAll(parent.unresolvedSuperclasses());
             }
         }
-        return null;
+        EffectiveFields result = new EffectiveFields(Collections.unmodifiableMap(fields), List.copyOf(hierarchy),
+                List.copyOf(unresolvedSuperclasses));
+        effectiveFields.put(declaration.qualifiedName(), result);
+        return result;
     }
 
     /**
-     * Find Java file within a single project path (recursive)
+     * Handle reflection fallback for system classes
      */
-    private static File findJavaFileForClass(String className, File folder) {
-        if (!folder.isDirectory()) return null;
-
-        File[] files = folder.listFiles();
-        if (files == null) return null;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                File result = findJavaFileForClass(className, file);
-                if (result != null) return result;
-            } else if (file.getName().equals(className + ".java")) {
-                try {
-                    CompilationUnit cu = StaticJavaParser.parse(file);
-                    Optional<ClassOrInterfaceDeclaration> clazz = cu.getClassByName(className);
-                    if (clazz.isPresent()) {
-                        return file;
-                    }
-                } catch (Exception e) {
-                    // Ignore parsing errors
+    private static void collectFieldsReflectively(String superClassName, Map<String, FieldVisibility> fields) {
+        try {
+            Class<?> currentClass = Class.forName(superClassName);
+            while (currentClass != null) {
+                for (Field field : currentClass.getDeclaredFields()) {
+                    fields.putIfAbsent(field.getName(), new FieldVisibility(field.getName(), currentClass.getName(),
+                            Visibility.fromModifiers(field.getModifiers()), true));
                 }
+                currentClass = currentClass.getSuperclass();
             }
+        } catch (ClassNotFoundException e) {
+            System.err.println("Could not load superclass by reflection: " + superClassName);
         }
-        return null;
     }
 
     // Main class, just to show case how to use this utility class
@@ -326,4 +292,13 @@ public class AttributeVisibilityAnalyzerMultiProject {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @param fields                 every field visible from the class, with the class declaring it
+     * @param hierarchy              where the class and its superclasses were read from
+     * @param unresolvedSuperclasses the superclasses none of the resolvers knew, read by reflection if possible
+     */
+    private record EffectiveFields(Map<String, FieldVisibility> fields, List<ClassDeclaration.Source> hierarchy,
+                                   List<String> unresolvedSuperclasses) {
+    }
+}
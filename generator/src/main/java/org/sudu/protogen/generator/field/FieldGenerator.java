@@ -8,9 +8,6 @@ import org.sudu.protogen.generator.GenerationContext;
 import org.sudu.protogen.generator.type.TypeModel;
 import org.sudu.protogen.utils.Poem;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class FieldGenerator implements DescriptorGenerator<Field, FieldProcessingResult> {
 
     private final GenerationContext context;
@@ -29,17 +26,11 @@ public class FieldGenerator implements DescriptorGenerator<Field, FieldProcessin
 
         String identifier2 = field.getOriginalName(); // get original name of the attribute
 
-        String rawName = field.getContainingMessage().getName();
-        String messageName = rawName.startsWith("Grpc") ? rawName.substring(4) : rawName; // to check visibility of the original class name
-
         boolean resultNeedGetter = false;
-        try {
-            Set<String> projectPaths = new HashSet<>();
-            projectPaths.add("C:\\Users\\bilal.belli\\eclipse-workspace\\myProject\\src\\main\\java");
-            // Add others if necessary
-            resultNeedGetter = AttributeVisibilityAnalyzerMultiProject.needGetter(messageName, identifier2, projectPaths);
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (context.isVisibilityAnalysisEnabled()) {
+            String rawName = field.getContainingMessage().getName();
+            String messageName = rawName.startsWith("Grpc") ? rawName.substring(4) : rawName; // to check visibility of the original class name
+            resultNeedGetter = context.needGetter(field, messageName, identifier2);
         }
 
         FieldSpec.Builder fieldSpecBuilder;
@@ -0,0 +1,169 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads class declarations from compiled classes: directories of {@code .class} files and jars.
+ * <p>
+ * The classpath is indexed on the first lookup. Only the constant pool and the fields of the looked up classes are
+ * read, see {@link ClassFileReader}; nothing is loaded into the JVM, so the classes don't need to be linkable.
+ * Opened jars are kept open until {@link #close()}.
+ */
+public class BytecodeClassResolver implements ClassResolver, AutoCloseable {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private static final String OBJECT = "java.lang.Object";
+
+    private final List<Path> classpath;
+
+    private final List<ZipFile> openedJars = new ArrayList<>();
+
+    private volatile Index index;
+
+    public BytecodeClassResolver(@NotNull List<Path> classpath) {
+        this.classpath = List.copyOf(classpath);
+    }
+
+    @Override
+    public @Nullable ClassDeclaration resolve(@NotNull String className) throws Exception {
+        Location location = getIndex().find(className);
+        if (location == null) {
+            return null;
+        }
+        ClassFileReader.ClassFile classFile = ClassFileReader.read(location.readBytes());
+        List<ClassDeclaration.DeclaredField> fields = classFile.fields().stream()
+                .map(field -> new ClassDeclaration.DeclaredField(field.name(), field.visibility()))
+                .toList();
+        String superName = OBJECT.equals(classFile.superName()) ? null : classFile.superName();
+        return new ClassDeclaration(classFile.name(), superName, fields, location.origin(),
+                location.jarEntry() == null ? null : location.jarEntry().getName());
+    }
+
+    @Override
+    public @Nullable ClassDeclaration.Source locate(@NotNull String className) {
+        Location location = getIndex().find(className);
+        if (location == null) {
+            return null;
+        }
+        return new ClassDeclaration.Source(location.origin(), location.jarEntry() == null ? null : location.jarEntry().getName());
+    }
+
+    @Override
+    public synchronized void close() {
+        for (ZipFile jar : openedJars) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close " + jar.getName() + ": " + e.getMessage());
+            }
+        }
+        openedJars.clear();
+        index = null;
+    }
+
+    private Index getIndex() {
+        Index current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = buildIndex();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Index buildIndex() {
+        Map<String, Location> byBinaryName = new HashMap<>();
+        Map<String, Location> bySimpleName = new HashMap<>();
+        // The first entry of the classpath defining a class wins, as for a class loader
+        for (Path entry : classpath) {
+            if (Files.isDirectory(entry)) {
+                indexDirectory(entry, byBinaryName, bySimpleName);
+            } else if (Files.isRegularFile(entry)) {
+                indexJar(entry, byBinaryName, bySimpleName);
+            } else {
+                System.err.println("Ignoring missing classpath entry " + entry);
+            }
+        }
+        return new Index(byBinaryName, bySimpleName);
+    }
+
+    private static void indexDirectory(Path directory, Map<String, Location> byBinaryName, Map<String, Location> bySimpleName) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(CLASS_EXTENSION))
+                    .sorted()
+                    .forEach(file -> {
+                        String relative = directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                        index(relative, new Location(file, null, null), byBinaryName, bySimpleName);
+                    });
+        } catch (IOException e) {
+            System.err.println("Failed to index classpath directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void indexJar(Path jar, Map<String, Location> byBinaryName, Map<String, Location> bySimpleName) {
+        try {
+            ZipFile zipFile = new ZipFile(jar.toFile());
+            openedJars.add(zipFile);
+            zipFile.stream()
+                    .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION))
+                    .forEach(entry -> index(entry.getName(), new Location(jar, zipFile, entry), byBinaryName, bySimpleName));
+        } catch (IOException e) {
+            System.err.println("Failed to index classpath jar " + jar + ": " + e.getMessage());
+        }
+    }
+
+    private static void index(String relativePath, Location location,
+                              Map<String, Location> byBinaryName, Map<String, Location> bySimpleName) {
+        if (relativePath.startsWith("META-INF/")) return; // multi-release versions of the classes
+        String internalName = relativePath.substring(0, relativePath.length() - CLASS_EXTENSION.length());
+        String binaryName = internalName.replace('/', '.');
+        if (binaryName.endsWith("module-info") || binaryName.endsWith("package-info")) return;
+        byBinaryName.putIfAbsent(binaryName, location);
+        // Nested classes are only reachable by their binary name, as with the sources
+        String simpleName = binaryName.substring(binaryName.lastIndexOf('.') + 1);
+        if (simpleName.indexOf('$') < 0) {
+            bySimpleName.putIfAbsent(simpleName, location);
+        }
+    }
+
+    private record Index(Map<String, Location> byBinaryName, Map<String, Location> bySimpleName) {
+
+        @Nullable
+        Location find(String className) {
+            Location location = byBinaryName.get(className);
+            return location != null ? location : bySimpleName.get(className);
+        }
+    }
+
+    /**
+     * @param origin   the class file or the jar containing it
+     * @param jar      the opened jar, {@code null} for class files
+     * @param jarEntry the entry of the class in the jar
+     */
+    private record Location(Path origin, @Nullable ZipFile jar, @Nullable ZipEntry jarEntry) {
+
+        byte[] readBytes() throws IOException {
+            if (jar == null) {
+                return Files.readAllBytes(origin);
+            }
+            try (InputStream in = jar.getInputStream(jarEntry)) {
+                return in.readAllBytes();
+            }
+        }
+    }
+}
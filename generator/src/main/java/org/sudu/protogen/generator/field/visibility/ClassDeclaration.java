@@ -0,0 +1,49 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The part of a class declaration the visibility analysis needs
+ *
+ * @param qualifiedName  the fully qualified name of the class
+ * @param superclassName the fully qualified name of the superclass when it is known, the name as written otherwise
+ * @param fields         the fields declared by the class itself
+ * @param origin         the file the declaration was read from
+ * @param originEntry    the entry of the class when the origin is a jar
+ */
+public record ClassDeclaration(
+        @NotNull String qualifiedName,
+        @Nullable String superclassName,
+        @NotNull List<DeclaredField> fields,
+        @NotNull Path origin,
+        @Nullable String originEntry
+) {
+
+    public ClassDeclaration(@NotNull String qualifiedName, @Nullable String superclassName,
+                            @NotNull List<DeclaredField> fields, @NotNull Path origin) {
+        this(qualifiedName, superclassName, fields, origin, null);
+    }
+
+    @NotNull
+    public Source source() {
+        return new Source(origin, originEntry);
+    }
+
+    /**
+     * Where a declaration was read from: a file, or an entry of a jar
+     */
+    public record Source(@NotNull Path file, @Nullable String entry) {
+
+        @Override
+        public String toString() {
+            return entry == null ? file.toString() : file + "!/" + entry;
+        }
+    }
+
+    public record DeclaredField(@NotNull String name, @NotNull Visibility visibility) {
+    }
+}
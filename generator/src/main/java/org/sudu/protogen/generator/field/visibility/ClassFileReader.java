@@ -0,0 +1,191 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal reader of the class file format.
+ * <p>
+ * Only the constant pool, the name of the class and of its superclass and the access flags of the declared fields
+ * are read; methods and attributes are never looked at and no class is loaded.
+ */
+public final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final byte[] bytes;
+
+    /**
+     * Offsets of the constant pool entries, pointing right after the tag byte
+     */
+    private final int[] constantOffsets;
+
+    private final String[] utf8Cache;
+
+    private int position;
+
+    private ClassFileReader(byte[] bytes) {
+        this.bytes = bytes;
+        if (readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        position += 4; // minor and major versions
+        int constantCount = readUnsignedShort();
+        this.constantOffsets = new int[constantCount];
+        this.utf8Cache = new String[constantCount];
+        for (int i = 1; i < constantCount; ++i) {
+            int tag = bytes[position++];
+            constantOffsets[i] = position;
+            switch (tag) {
+                case CONSTANT_UTF8 -> {
+                    int length = readUnsignedShort(position);
+                    position += 2 + length;
+                }
+                case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE -> position += 2;
+                case CONSTANT_METHOD_HANDLE -> position += 3;
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELD_REF, CONSTANT_METHOD_REF,
+                        CONSTANT_INTERFACE_METHOD_REF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                        CONSTANT_INVOKE_DYNAMIC -> position += 4;
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    position += 8;
+                    ++i; // 8-byte constants take two slots of the pool
+                }
+                default -> throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at index " + i);
+            }
+        }
+    }
+
+    /**
+     * @param bytes the content of a {@code .class} file
+     */
+    @NotNull
+    public static ClassFile read(byte @NotNull [] bytes) {
+        try {
+            return new ClassFileReader(bytes).readClass();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated class file", e);
+        }
+    }
+
+    private ClassFile readClass() {
+        position += 2; // access flags of the class
+        String name = binaryName(classNameAt(readUnsignedShort()));
+        int superIndex = readUnsignedShort();
+        String superName = superIndex == 0 ? null : binaryName(classNameAt(superIndex));
+        int interfaceCount = readUnsignedShort();
+        position += 2 * interfaceCount;
+
+        int fieldCount = readUnsignedShort();
+        List<FieldInfo> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; ++i) {
+            int accessFlags = readUnsignedShort();
+            String fieldName = utf8At(readUnsignedShort());
+            position += 2; // descriptor
+            skipAttributes();
+            if ((accessFlags & ACC_SYNTHETIC) == 0) {
+                fields.add(new FieldInfo(fieldName, visibilityOf(accessFlags)));
+            }
+        }
+        return new ClassFile(name, superName, fields);
+    }
+
+    private void skipAttributes() {
+        int attributeCount = readUnsignedShort();
+        for (int i = 0; i < attributeCount; ++i) {
+            position += 2; // name
+            int length = readInt();
+            position += length;
+        }
+    }
+
+    private static Visibility visibilityOf(int accessFlags) {
+        if ((accessFlags & ACC_PUBLIC) != 0) return Visibility.PUBLIC;
+        if ((accessFlags & ACC_PROTECTED) != 0) return Visibility.PROTECTED;
+        if ((accessFlags & ACC_PRIVATE) != 0) return Visibility.PRIVATE;
+        return Visibility.PACKAGE_PRIVATE;
+    }
+
+    private String classNameAt(int index) {
+        return utf8At(readUnsignedShort(constantOffsets[index]));
+    }
+
+    /**
+     * Utf8 constants are only decoded when they are asked for
+     */
+    private String utf8At(int index) {
+        String value = utf8Cache[index];
+        if (value == null) {
+            int offset = constantOffsets[index];
+            int length = readUnsignedShort(offset);
+            try {
+                // The class file format uses the same modified UTF-8 as DataInput
+                value = new DataInputStream(new ByteArrayInputStream(bytes, offset, length + 2)).readUTF();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            utf8Cache[index] = value;
+        }
+        return value;
+    }
+
+    private static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private int readUnsignedShort() {
+        int value = readUnsignedShort(position);
+        position += 2;
+        return value;
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private int readInt() {
+        int value = ((bytes[position] & 0xFF) << 24) | ((bytes[position + 1] & 0xFF) << 16)
+                | ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    /**
+     * @param name      the binary name of the class, e.g. {@code com.example.Outer$Inner}
+     * @param superName the binary name of the superclass, {@code null} for {@code java.lang.Object} and modules
+     */
+    public record ClassFile(@NotNull String name, @Nullable String superName, @NotNull List<FieldInfo> fields) {
+    }
+
+    public record FieldInfo(@NotNull String name, @NotNull Visibility visibility) {
+    }
+}
@@ -0,0 +1,141 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the java sources found under the configured project roots.
+ * <p>
+ * The index is built by a single scan of the roots and is meant to be shared by all visibility lookups of a
+ * generation run. Classes are addressable by their simple name and by their fully qualified name; the package is
+ * derived from the location of the file relative to its root. Superclass edges are recorded as soon as the
+ * corresponding class is analyzed, so the hierarchy is resolved at most once.
+ */
+public final class ClassIndex {
+
+    private static final String JAVA_EXTENSION = ".java";
+
+    private final Map<String, List<Entry>> bySimpleName;
+
+    private final Map<String, Entry> byQualifiedName;
+
+    private final Map<String, Entry> superclassEdges = new ConcurrentHashMap<>();
+
+    private ClassIndex(Map<String, List<Entry>> bySimpleName, Map<String, Entry> byQualifiedName) {
+        this.bySimpleName = bySimpleName;
+        this.byQualifiedName = byQualifiedName;
+    }
+
+    @NotNull
+    public static ClassIndex build(@NotNull Collection<String> projectPaths) {
+        List<Path> roots = projectPaths.stream()
+                .map(Path::of)
+                .map(Path::toAbsolutePath)
+                .toList();
+        List<Entry> entries = SourceTreeScanner.scan(roots).stream()
+                .map(ClassIndex::toEntry)
+                .sorted(Comparator.comparing(Entry::file))
+                .toList();
+
+        Map<String, List<Entry>> bySimpleName = new HashMap<>();
+        Map<String, Entry> byQualifiedName = new HashMap<>();
+        for (Entry entry : entries) {
+            bySimpleName.computeIfAbsent(entry.simpleName(), $ -> new ArrayList<>()).add(entry);
+            // Entries are sorted by path, so duplicated names always resolve to the same file
+            byQualifiedName.putIfAbsent(entry.qualifiedName(), entry);
+        }
+        return new ClassIndex(bySimpleName, byQualifiedName);
+    }
+
+    private static Entry toEntry(SourceTreeScanner.SourceFile sourceFile) {
+        Path relative = sourceFile.root().relativize(sourceFile.file());
+        String fileName = relative.getFileName().toString();
+        String simpleName = fileName.substring(0, fileName.length() - JAVA_EXTENSION.length());
+        Path parent = relative.getParent();
+        String packageName = parent == null ? "" : parent.toString().replace(relative.getFileSystem().getSeparator(), ".");
+        return new Entry(simpleName, packageName, sourceFile.file(), sourceFile.root());
+    }
+
+    public int size() {
+        return byQualifiedName.size();
+    }
+
+    /**
+     * Finds a class either by its fully qualified name or, if there is no such class, by its simple name.
+     * When several classes share the simple name, the one whose path sorts first is returned.
+     */
+    @Nullable
+    public Entry find(@NotNull String className) {
+        Entry qualified = byQualifiedName.get(className);
+        if (qualified != null) return qualified;
+        List<Entry> candidates = bySimpleName.getOrDefault(className, List.of());
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    @Nullable
+    public Entry findByQualifiedName(@NotNull String qualifiedName) {
+        return byQualifiedName.get(qualifiedName);
+    }
+
+    @NotNull
+    public List<Entry> findBySimpleName(@NotNull String simpleName) {
+        return bySimpleName.getOrDefault(simpleName, List.of());
+    }
+
+    /**
+     * Resolves a type name the way the compiler would for a source file: explicit imports first, then the package
+     * of the referencing class, then the asterisk imports, then the name taken as fully qualified.
+     *
+     * @param typeName        the name as written in the source
+     * @param importMap       simple name to fully qualified name for single-type imports
+     * @param onDemandImports the packages imported with an asterisk
+     * @param currentPackage  the package of the referencing class
+     */
+    @Nullable
+    public Entry resolve(@NotNull String typeName, @NotNull Map<String, String> importMap,
+                         @NotNull Collection<String> onDemandImports, @NotNull String currentPackage) {
+        String imported = importMap.get(typeName);
+        if (imported != null) {
+            return byQualifiedName.get(imported);
+        }
+        Entry samePackage = byQualifiedName.get(currentPackage.isEmpty() ? typeName : currentPackage + "." + typeName);
+        if (samePackage != null) {
+            return samePackage;
+        }
+        if (typeName.contains(".")) {
+            return byQualifiedName.get(typeName);
+        }
+        for (String onDemandImport : onDemandImports) {
+            Entry entry = byQualifiedName.get(onDemandImport + "." + typeName);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public void recordSuperclass(@NotNull Entry clazz, @NotNull Entry superclass) {
+        superclassEdges.put(clazz.qualifiedName(), superclass);
+    }
+
+    @Nullable
+    public Entry getSuperclass(@NotNull Entry clazz) {
+        return superclassEdges.get(clazz.qualifiedName());
+    }
+
+    public record Entry(
+            @NotNull String simpleName,
+            @NotNull String packageName,
+            @NotNull Path file,
+            @NotNull Path root
+    ) {
+
+        public String qualifiedName() {
+            return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads class declarations from some representation of the analyzed projects
+ */
+public interface ClassResolver {
+
+    /**
+     * @param className a fully qualified or a simple class name
+     * @return the declaration or {@code null} if the class isn't known to the resolver
+     */
+    @Nullable
+    ClassDeclaration resolve(@NotNull String className) throws Exception;
+
+    /**
+     * Tells where the class would be read from, resolvers with an index answer without reading the class
+     *
+     * @param className a fully qualified or a simple class name
+     * @return {@code null} if the class isn't known to the resolver
+     */
+    @Nullable
+    default ClassDeclaration.Source locate(@NotNull String className) throws Exception {
+        ClassDeclaration declaration = resolve(className);
+        return declaration == null ? null : declaration.source();
+    }
+}
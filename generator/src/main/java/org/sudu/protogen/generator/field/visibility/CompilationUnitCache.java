@@ -0,0 +1,129 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of parsed source files.
+ * <p>
+ * Entries are keyed by path and are only reused while the modification time and the size of the file stay the same.
+ * The number of kept compilation units is bounded, so the memory used by the cache doesn't grow with the workspace.
+ */
+public final class CompilationUnitCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+
+    /**
+     * Reads the sources as the compiler would: records, text blocks and unicode escapes in names
+     */
+    private static final ParserConfiguration PARSER_CONFIGURATION = new ParserConfiguration()
+            .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17)
+            .setPreprocessUnicodeEscapes(true);
+
+    private final int maxEntries;
+
+    private final Map<Path, CachedUnit> units;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CompilationUnitCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public CompilationUnitCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache should keep at least one compilation unit");
+        }
+        this.maxEntries = maxEntries;
+        this.units = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedUnit> eldest) {
+                if (size() > CompilationUnitCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed file, parsing it only if it isn't cached or has changed since it was parsed
+     */
+    @NotNull
+    public CompilationUnit parse(@NotNull Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        FileTime modified = attributes.lastModifiedTime();
+        long size = attributes.size();
+
+        CachedUnit cached;
+        synchronized (units) {
+            cached = units.get(file);
+        }
+        if (cached != null && cached.modified().equals(modified) && cached.size() == size) {
+            hits.incrementAndGet();
+            return cached.unit();
+        }
+
+        misses.incrementAndGet();
+        // Parsing happens outside the lock, two threads may parse the same file, but the result is the same
+        ParseResult<CompilationUnit> result = new JavaParser(PARSER_CONFIGURATION).parse(file);
+        CompilationUnit unit = result.getResult()
+                .filter(parsed -> result.isSuccessful())
+                .orElseThrow(() -> new ParseProblemException(result.getProblems()));
+        synchronized (units) {
+            units.put(file, new CachedUnit(unit, modified, size));
+        }
+        return unit;
+    }
+
+    public void clear() {
+        synchronized (units) {
+            units.clear();
+        }
+    }
+
+    @NotNull
+    public Statistics statistics() {
+        int size;
+        synchronized (units) {
+            size = units.size();
+        }
+        return new Statistics(hits.get(), misses.get(), evictions.get(), size, maxEntries);
+    }
+
+    private record CachedUnit(CompilationUnit unit, FileTime modified, long size) {
+    }
+
+    public record Statistics(long hits, long misses, long evictions, int size, int maxEntries) {
+
+        /**
+         * @return the parsing requests done since {@code start} was taken, along with the current size
+         */
+        public Statistics since(Statistics start) {
+            return new Statistics(hits - start.hits, misses - start.misses, evictions - start.evictions, size, maxEntries);
+        }
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
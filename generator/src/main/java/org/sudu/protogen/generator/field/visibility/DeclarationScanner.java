@@ -0,0 +1,551 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streaming scanner extracting from a java source only what the visibility analysis needs: the package, the imports,
+ * the {@code extends} clause of the top level classes and their field declarations with their modifiers.
+ * <p>
+ * Unlike a full parse, no syntax tree is built. Method bodies, initializers and nested types are skipped by counting
+ * brackets and identifiers are only materialized when they are part of the result. Sources the scanner doesn't
+ * understand are reported with a {@link ScanException}, the caller is expected to fall back to a real parser.
+ */
+public final class DeclarationScanner {
+
+    private static final int EOF = 0;
+    private static final int IDENTIFIER = 1;
+    private static final int SYMBOL = 2;
+    private static final int LITERAL = 3;
+    private static final int INVALID = 4;
+
+    private static final Set<String> MODIFIERS = Set.of(
+            "public", "protected", "private", "static", "final", "abstract", "transient", "volatile",
+            "synchronized", "native", "strictfp", "default", "sealed"
+    );
+
+    private final String source;
+
+    private int position;
+
+    private int tokenKind;
+
+    private int tokenStart;
+
+    private int tokenEnd;
+
+    private DeclarationScanner(String source) {
+        this.source = source;
+    }
+
+    @NotNull
+    public static ScannedFile scan(@NotNull Path file) throws IOException, ScanException {
+        // Malformed input is replaced rather than rejected, like the parser does
+        return scan(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @NotNull
+    public static ScannedFile scan(@NotNull String source) throws ScanException {
+        return new DeclarationScanner(source).scanFile();
+    }
+
+    private ScannedFile scanFile() throws ScanException {
+        next();
+        skipAnnotations();
+        String packageName = "";
+        if (isIdentifier("package")) {
+            next();
+            packageName = qualifiedName();
+            expect(';');
+        }
+        Map<String, String> imports = new HashMap<>();
+        List<String> onDemandImports = new ArrayList<>();
+        while (isIdentifier("import") || isSymbol(';')) {
+            if (isSymbol(';')) {
+                next();
+                continue;
+            }
+            next();
+            boolean isStatic = isIdentifier("static");
+            if (isStatic) next();
+            String name = qualifiedName();
+            if (isSymbol('.')) {
+                next();
+                expect('*');
+                if (!isStatic) {
+                    onDemandImports.add(name);
+                }
+            } else {
+                imports.put(name.substring(name.lastIndexOf('.') + 1), name);
+            }
+            expect(';');
+        }
+        Map<String, ScannedType> types = new LinkedHashMap<>();
+        while (tokenKind != EOF) {
+            if (isSymbol(';')) {
+                next();
+                continue;
+            }
+            modifiers();
+            typeDeclaration(types);
+        }
+        return new ScannedFile(packageName, imports, onDemandImports, types);
+    }
+
+    /**
+     * Reads a type declaration starting at its keyword. Only classes and interfaces are added to the result,
+     * as they are the only ones the parser would return by name.
+     */
+    private void typeDeclaration(Map<String, ScannedType> types) throws ScanException {
+        boolean classOrInterface;
+        boolean isInterface = false;
+        boolean record = false;
+        if (isSymbol('@')) {
+            next();
+            expectIdentifier("interface");
+            classOrInterface = false;
+        } else if (isIdentifier("class") || isIdentifier("interface")) {
+            isInterface = isIdentifier("interface");
+            next();
+            classOrInterface = true;
+        } else if (isIdentifier("enum") || isIdentifier("record")) {
+            record = isIdentifier("record");
+            next();
+            classOrInterface = false;
+        } else {
+            throw unexpected();
+        }
+        String name = identifier();
+        if (isSymbol('<')) skipBalanced('<', '>');
+        if (record && isSymbol('(')) skipBalanced('(', ')');
+
+        String extendedType = null;
+        while (!isSymbol('{')) {
+            if (tokenKind == EOF) throw unexpected();
+            if (isIdentifier("extends")) {
+                next();
+                skipAnnotations();
+                String type = qualifiedName();
+                if (extendedType == null) extendedType = type;
+            } else if (isSymbol('<')) {
+                skipBalanced('<', '>');
+            } else {
+                next();
+            }
+        }
+        if (classOrInterface) {
+            List<ClassDeclaration.DeclaredField> fields = classBody(isInterface);
+            types.putIfAbsent(name, new ScannedType(name, extendedType, fields));
+        } else {
+            skipBalanced('{', '}');
+        }
+    }
+
+    /**
+     * @param isInterface fields of interfaces are implicitly public
+     */
+    private List<ClassDeclaration.DeclaredField> classBody(boolean isInterface) throws ScanException {
+        expect('{');
+        List<ClassDeclaration.DeclaredField> fields = new ArrayList<>();
+        while (!isSymbol('}')) {
+            if (tokenKind == EOF) throw unexpected();
+            if (isSymbol(';')) {
+                next();
+                continue;
+            }
+            Visibility visibility = modifiers();
+            if (isInterface) visibility = Visibility.PUBLIC;
+            if (isSymbol('{')) {
+                // Initializer block
+                skipBalanced('{', '}');
+                continue;
+            }
+            if (isNestedTypeDeclaration()) {
+                typeDeclaration(new HashMap<>());
+                continue;
+            }
+            if (isSymbol('<')) {
+                // Type parameters of a generic method or constructor
+                skipBalanced('<', '>');
+            }
+            skipType();
+            if (isSymbol('(')) {
+                // Constructor
+                skipMethodRest();
+                continue;
+            }
+            String name = identifier();
+            if (isSymbol('(')) {
+                skipMethodRest();
+                continue;
+            }
+            while (true) {
+                fields.add(new ClassDeclaration.DeclaredField(name, visibility));
+                while (isSymbol('[')) skipBalanced('[', ']');
+                if (isSymbol('=')) skipInitializer();
+                if (isSymbol(';')) {
+                    next();
+                    break;
+                }
+                expect(',');
+                name = identifier();
+            }
+        }
+        next();
+        return fields;
+    }
+
+    private boolean isNestedTypeDeclaration() {
+        if (isIdentifier("class") || isIdentifier("interface") || isIdentifier("enum")) {
+            return true;
+        }
+        if (isSymbol('@')) {
+            return true; // Annotations were consumed as modifiers, so this is an annotation type
+        }
+        if (isIdentifier("record")) {
+            // A contextual keyword, "record" followed by a name is a record declaration, otherwise it is a type name
+            int mark = tokenStart;
+            next();
+            boolean nested = tokenKind == IDENTIFIER;
+            reset(mark);
+            return nested;
+        }
+        return false;
+    }
+
+    /**
+     * Consumes modifiers and annotations
+     *
+     * @return the visibility the modifiers give
+     */
+    private Visibility modifiers() throws ScanException {
+        Visibility visibility = Visibility.PACKAGE_PRIVATE;
+        while (true) {
+            if (isSymbol('@')) {
+                int mark = tokenStart;
+                next();
+                if (isIdentifier("interface")) {
+                    reset(mark);
+                    return visibility;
+                }
+                reset(mark);
+                skipAnnotation();
+            } else if (isIdentifier("public")) {
+                visibility = Visibility.PUBLIC;
+                next();
+            } else if (isIdentifier("protected")) {
+                visibility = Visibility.PROTECTED;
+                next();
+            } else if (isIdentifier("private")) {
+                visibility = Visibility.PRIVATE;
+                next();
+            } else if (tokenKind == IDENTIFIER && MODIFIERS.contains(text())) {
+                next();
+            } else if (isIdentifier("non")) {
+                int mark = tokenStart;
+                next();
+                if (!isSymbol('-')) {
+                    reset(mark);
+                    return visibility;
+                }
+                next();
+                expectIdentifier("sealed");
+            } else {
+                return visibility;
+            }
+        }
+    }
+
+    private void skipAnnotations() throws ScanException {
+        while (isSymbol('@')) {
+            int mark = tokenStart;
+            next();
+            if (isIdentifier("interface")) {
+                reset(mark);
+                return;
+            }
+            reset(mark);
+            skipAnnotation();
+        }
+    }
+
+    private void skipAnnotation() throws ScanException {
+        expect('@');
+        qualifiedName();
+        if (isSymbol('(')) skipBalanced('(', ')');
+    }
+
+    /**
+     * Skips a type: qualified name, type arguments, annotations and array dimensions
+     */
+    private void skipType() throws ScanException {
+        skipAnnotations();
+        identifier();
+        while (true) {
+            if (isSymbol('<')) {
+                skipBalanced('<', '>');
+            } else if (isSymbol('.')) {
+                next();
+                skipAnnotations();
+                identifier();
+            } else if (isSymbol('[')) {
+                skipBalanced('[', ']');
+            } else if (isSymbol('@')) {
+                skipAnnotations();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips the parameters, the throws clause and the body of a method, or its default value for annotation types
+     */
+    private void skipMethodRest() throws ScanException {
+        skipBalanced('(', ')');
+        while (true) {
+            if (tokenKind == EOF) throw unexpected();
+            if (isSymbol('{')) {
+                skipBalanced('{', '}');
+                return;
+            }
+            if (isSymbol(';')) {
+                next();
+                return;
+            }
+            next();
+        }
+    }
+
+    /**
+     * Skips a field initializer, stopping before the {@code ,} starting the next declarator or the final {@code ;}
+     */
+    private void skipInitializer() throws ScanException {
+        expect('=');
+        int depth = 0;
+        while (true) {
+            if (tokenKind == EOF) throw unexpected();
+            if (depth == 0 && isSymbol(';')) return;
+            if (depth == 0 && isSymbol(',') && isDeclaratorAhead()) return;
+            if (isSymbol('(') || isSymbol('[') || isSymbol('{')) {
+                ++depth;
+            } else if (isSymbol(')') || isSymbol(']') || isSymbol('}')) {
+                if (--depth < 0) throw unexpected();
+            }
+            next();
+        }
+    }
+
+    /**
+     * Tells a comma separating declarators from a comma of type arguments, as in {@code new HashMap<K, V>()}
+     */
+    private boolean isDeclaratorAhead() {
+        int mark = tokenStart;
+        next();
+        boolean declarator = false;
+        if (tokenKind == IDENTIFIER) {
+            next();
+            while (isSymbol('[')) {
+                next();
+                if (!isSymbol(']')) break;
+                next();
+            }
+            declarator = isSymbol('=') || isSymbol(',') || isSymbol(';');
+        }
+        reset(mark);
+        return declarator;
+    }
+
+    private void skipBalanced(char open, char close) throws ScanException {
+        int depth = 0;
+        do {
+            if (tokenKind == EOF) throw unexpected();
+            if (isSymbol(open)) {
+                ++depth;
+            } else if (isSymbol(close)) {
+                --depth;
+            }
+            next();
+        } while (depth > 0);
+    }
+
+    private String qualifiedName() throws ScanException {
+        String name = identifier();
+        StringBuilder qualified = null;
+        while (isSymbol('.')) {
+            int mark = tokenStart;
+            next();
+            if (tokenKind != IDENTIFIER) {
+                reset(mark);
+                break;
+            }
+            if (qualified == null) qualified = new StringBuilder(name);
+            qualified.append('.').append(text());
+            next();
+        }
+        return qualified == null ? name : qualified.toString();
+    }
+
+    private String identifier() throws ScanException {
+        if (tokenKind != IDENTIFIER) throw unexpected();
+        String identifier = text();
+        next();
+        return identifier;
+    }
+
+    private void expectIdentifier(String identifier) throws ScanException {
+        if (!isIdentifier(identifier)) throw unexpected();
+        next();
+    }
+
+    private void expect(char symbol) throws ScanException {
+        if (!isSymbol(symbol)) throw unexpected();
+        next();
+    }
+
+    private boolean isIdentifier(String identifier) {
+        return tokenKind == IDENTIFIER
+                && tokenEnd - tokenStart == identifier.length()
+                && source.startsWith(identifier, tokenStart);
+    }
+
+    private boolean isSymbol(char symbol) {
+        return tokenKind == SYMBOL && source.charAt(tokenStart) == symbol;
+    }
+
+    private String text() {
+        return source.substring(tokenStart, tokenEnd);
+    }
+
+    private void reset(int tokenStart) {
+        position = tokenStart;
+        next();
+    }
+
+    /**
+     * Moves to the next token, skipping whitespaces and comments. Unsupported input gives an invalid token,
+     * which fails the scan as it matches nothing.
+     */
+    private void next() {
+        int length = source.length();
+        while (position < length) {
+            char c = source.charAt(position);
+            if (Character.isWhitespace(c)) {
+                ++position;
+            } else if (c == '/' && position + 1 < length && source.charAt(position + 1) == '/') {
+                int end = source.indexOf('\n', position);
+                position = end < 0 ? length : end + 1;
+            } else if (c == '/' && position + 1 < length && source.charAt(position + 1) == '*') {
+                int end = source.indexOf("*/", position + 2);
+                position = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        tokenStart = position;
+        if (position >= length) {
+            tokenKind = EOF;
+            tokenEnd = position;
+            return;
+        }
+        char c = source.charAt(position);
+        if (Character.isJavaIdentifierStart(c)) {
+            do {
+                ++position;
+            } while (position < length && Character.isJavaIdentifierPart(source.charAt(position)));
+            tokenKind = IDENTIFIER;
+        } else if (Character.isDigit(c) || c == '.' && position + 1 < length && Character.isDigit(source.charAt(position + 1))) {
+            skipNumber();
+            tokenKind = LITERAL;
+        } else if (c == '"' && source.startsWith("\"\"\"", position)) {
+            skipQuoted("\"\"\"", position + 3);
+        } else if (c == '"' || c == '\'') {
+            skipQuoted(c == '"' ? "\"" : "'", position + 1);
+        } else {
+            ++position;
+            tokenKind = c == '\\' ? INVALID : SYMBOL; // Unicode escapes outside of literals aren't supported
+        }
+        tokenEnd = position;
+    }
+
+    private void skipNumber() {
+        int length = source.length();
+        char previous = 0;
+        while (position < length) {
+            char c = source.charAt(position);
+            boolean exponentSign = (c == '+' || c == '-') && (previous == 'e' || previous == 'E' || previous == 'p' || previous == 'P');
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && !exponentSign) {
+                break;
+            }
+            previous = c;
+            ++position;
+        }
+    }
+
+    private void skipQuoted(String quote, int from) {
+        int length = source.length();
+        int i = from;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (source.startsWith(quote, i)) {
+                position = i + quote.length();
+                tokenKind = LITERAL;
+                return;
+            } else if (c == '\n' && quote.length() == 1) {
+                break;
+            } else {
+                ++i;
+            }
+        }
+        // Unterminated literal
+        position = length;
+        tokenKind = INVALID;
+    }
+
+    private ScanException unexpected() {
+        int line = 1;
+        for (int i = 0; i < tokenStart && i < source.length(); ++i) {
+            if (source.charAt(i) == '\n') ++line;
+        }
+        String token = tokenKind == EOF ? "end of file" : "'" + text() + "'";
+        return new ScanException("Unexpected " + token + " at line " + line);
+    }
+
+    /**
+     * @param imports         simple name to fully qualified name for single-type imports
+     * @param onDemandImports the packages imported with an asterisk
+     * @param types           top level classes and interfaces by their simple name
+     */
+    public record ScannedFile(
+            @NotNull String packageName,
+            @NotNull Map<String, String> imports,
+            @NotNull List<String> onDemandImports,
+            @NotNull Map<String, ScannedType> types
+    ) {
+    }
+
+    /**
+     * @param extendedType the first type of the {@code extends} clause as written, without its type arguments
+     */
+    public record ScannedType(
+            @NotNull String name,
+            @Nullable String extendedType,
+            @NotNull List<ClassDeclaration.DeclaredField> fields
+    ) {
+    }
+
+    public static final class ScanException extends Exception {
+
+        public ScanException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A field seen from the analyzed class
+ *
+ * @param name           the field name
+ * @param declaringClass the class in the hierarchy declaring the field
+ * @param visibility     the visibility of the declaration
+ * @param inherited      whether the field is declared in a superclass
+ */
+public record FieldVisibility(
+        @NotNull String name,
+        @NotNull String declaringClass,
+        @NotNull Visibility visibility,
+        boolean inherited
+) {
+
+    /**
+     * Fields declared in the class itself are accessed directly, inherited ones only if they are not hidden
+     */
+    public boolean needGetter() {
+        return inherited && visibility.isHidden();
+    }
+
+    /**
+     * The same field seen from a subclass of the analyzed class
+     */
+    public FieldVisibility asInherited() {
+        return inherited ? this : new FieldVisibility(name, declaringClass, visibility, true);
+    }
+}
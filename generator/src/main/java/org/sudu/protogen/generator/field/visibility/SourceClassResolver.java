@@ -0,0 +1,251 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads class declarations from the java sources of the project paths.
+ * Every class is read once, the declarations are kept for the lifetime of the resolver.
+ */
+public class SourceClassResolver implements ClassResolver {
+
+    private final Set<String> projectPaths;
+
+    private final SourceEngine engine;
+
+    private final CompilationUnitCache compilationUnitCache;
+
+    private final Map<String, ClassDeclaration> declarations = new ConcurrentHashMap<>();
+
+    private final AtomicLong scannerFallbacks = new AtomicLong();
+
+    private volatile ClassIndex classIndex;
+
+    public SourceClassResolver(@NotNull Set<String> projectPaths, @NotNull CompilationUnitCache compilationUnitCache) {
+        this(projectPaths, SourceEngine.SCANNER, compilationUnitCache);
+    }
+
+    public SourceClassResolver(@NotNull Set<String> projectPaths, @NotNull SourceEngine engine,
+                               @NotNull CompilationUnitCache compilationUnitCache) {
+        this.projectPaths = Set.copyOf(projectPaths);
+        this.engine = engine;
+        this.compilationUnitCache = compilationUnitCache;
+    }
+
+    /**
+     * The project paths are indexed on the first call
+     */
+    @NotNull
+    public ClassIndex getClassIndex() {
+        ClassIndex index = classIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = classIndex;
+                if (index == null) {
+                    index = ClassIndex.build(projectPaths);
+                    classIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    @NotNull
+    public CompilationUnitCache getCompilationUnitCache() {
+        return compilationUnitCache;
+    }
+
+    @NotNull
+    public SourceEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return how many files the scanner couldn't read and were parsed instead
+     */
+    public long getScannerFallbacks() {
+        return scannerFallbacks.get();
+    }
+
+    @Override
+    public @Nullable ClassDeclaration resolve(@NotNull String className) throws Exception {
+        ClassIndex.Entry classEntry = getClassIndex().find(className);
+        if (classEntry == null) {
+            return null;
+        }
+        ClassDeclaration declaration = declarations.get(classEntry.qualifiedName());
+        if (declaration != null) {
+            return declaration;
+        }
+        if (engine == SourceEngine.SCANNER) {
+            declaration = scan(classEntry);
+        }
+        if (declaration == null) {
+            declaration = parse(classEntry);
+        }
+        declarations.put(classEntry.qualifiedName(), declaration);
+        return declaration;
+    }
+
+    @Override
+    public @Nullable ClassDeclaration.Source locate(@NotNull String className) {
+        ClassIndex.Entry classEntry = getClassIndex().find(className);
+        return classEntry == null ? null : new ClassDeclaration.Source(classEntry.file(), null);
+    }
+
+    /**
+     * @return {@code null} if the scanner can't read the file or doesn't find the class in it
+     */
+    @Nullable
+    private ClassDeclaration scan(ClassIndex.Entry classEntry) throws IOException {
+        DeclarationScanner.ScannedFile file;
+        try {
+            file = DeclarationScanner.scan(classEntry.file());
+        } catch (DeclarationScanner.ScanException e) {
+            scannerFallbacks.incrementAndGet();
+            System.err.println("Parsing " + classEntry.file() + " instead of scanning it: " + e.getMessage());
+            return null;
+        }
+        DeclarationScanner.ScannedType type = file.types().get(classEntry.simpleName());
+        if (type == null) {
+            return null;
+        }
+        String superclassName = null;
+        if (type.extendedType() != null) {
+            superclassName = resolveSuperclassName(classEntry, type.extendedType(), file.imports(),
+                    file.onDemandImports(), file.packageName());
+        }
+        return new ClassDeclaration(classEntry.qualifiedName(), superclassName, type.fields(), classEntry.file());
+    }
+
+    private ClassDeclaration parse(ClassIndex.Entry classEntry) throws Exception {
+        CompilationUnit cu = compilationUnitCache.parse(classEntry.file());
+        Optional<ClassOrInterfaceDeclaration> clazzOpt = cu.getClassByName(classEntry.simpleName());
+        if (clazzOpt.isEmpty()) {
+            throw new Exception("Class not found in file: " + classEntry.file().getFileName());
+        }
+        ClassOrInterfaceDeclaration clazz = clazzOpt.get();
+
+        List<ClassDeclaration.DeclaredField> fields = new ArrayList<>();
+        for (FieldDeclaration field : clazz.getFields()) {
+            Visibility visibility = visibilityOf(field);
+            for (VariableDeclarator var : field.getVariables()) {
+                fields.add(new ClassDeclaration.DeclaredField(var.getNameAsString(), visibility));
+            }
+        }
+
+        String superclassName = null;
+        if (clazz.getExtendedTypes().isNonEmpty()) {
+            String extendedType = clazz.getExtendedTypes(0).getNameWithScope();
+            superclassName = resolveSuperclassName(classEntry, extendedType, buildImportMap(cu),
+                    onDemandImports(cu), getCurrentPackage(cu));
+        }
+        return new ClassDeclaration(classEntry.qualifiedName(), superclassName, fields, classEntry.file());
+    }
+
+    /**
+     * Find the superclass using the import statements of the class and the workspace index.
+     * The returned name is always qualified: a simple name would be looked up by the resolvers among all the classes
+     * sharing it.
+     */
+    private String resolveSuperclassName(ClassIndex.Entry classEntry, String superClassName, Map<String, String> importMap,
+                                         List<String> onDemandImports, String currentPackage) {
+        ClassIndex classIndex = getClassIndex();
+        ClassIndex.Entry known = classIndex.getSuperclass(classEntry);
+        if (known != null) {
+            return known.qualifiedName();
+        }
+        ClassIndex.Entry superClassEntry = classIndex.resolve(superClassName, importMap, onDemandImports, currentPackage);
+        if (superClassEntry != null) {
+            classIndex.recordSuperclass(classEntry, superClassEntry);
+            return superClassEntry.qualifiedName();
+        }
+        // Not a part of the sources, but the import still tells where to look for it
+        String imported = importMap.get(superClassName);
+        if (imported != null) {
+            return imported;
+        }
+        if (superClassName.contains(".")) {
+            return superClassName;
+        }
+        // Only the platform classes can be told apart among the asterisk imports, java.lang being one of them
+        for (String onDemandImport : onDemandImports) {
+            if (isPlatformClass(onDemandImport + "." + superClassName)) {
+                return onDemandImport + "." + superClassName;
+            }
+        }
+        if (isPlatformClass("java.lang." + superClassName)) {
+            return "java.lang." + superClassName;
+        }
+        // Unresolved unless it is a compiled class of the package
+        return currentPackage.isEmpty() ? superClassName : currentPackage + "." + superClassName;
+    }
+
+    private static boolean isPlatformClass(String qualifiedName) {
+        return ClassLoader.getPlatformClassLoader().getResource(qualifiedName.replace('.', '/') + ".class") != null;
+    }
+
+    private static Visibility visibilityOf(FieldDeclaration field) {
+        if (field.isPublic()) return Visibility.PUBLIC;
+        if (field.isProtected()) return Visibility.PROTECTED;
+        if (field.isPrivate()) return Visibility.PRIVATE;
+        return Visibility.PACKAGE_PRIVATE;
+    }
+
+    /**
+     * Build a map of class names to their full import paths
+     */
+    private static Map<String, String> buildImportMap(CompilationUnit cu) {
+        Map<String, String> importMap = new HashMap<>();
+
+        for (ImportDeclaration importDecl : cu.getImports()) {
+            if (!importDecl.isAsterisk()) {
+                String fullImport = importDecl.getNameAsString();
+                String className = getClassNameFromImport(fullImport);
+                importMap.put(className, fullImport);
+            }
+        }
+
+        return importMap;
+    }
+
+    /**
+     * The packages imported with an asterisk, the static ones only bring members
+     */
+    private static List<String> onDemandImports(CompilationUnit cu) {
+        List<String> packages = new ArrayList<>();
+        for (ImportDeclaration importDecl : cu.getImports()) {
+            if (importDecl.isAsterisk() && !importDecl.isStatic()) {
+                packages.add(importDecl.getNameAsString());
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Get current package name from CompilationUnit
+     */
+    private static String getCurrentPackage(CompilationUnit cu) {
+        Optional<PackageDeclaration> packageDecl = cu.getPackageDeclaration();
+        return packageDecl.map(pkg -> pkg.getNameAsString()).orElse("");
+    }
+
+    /**
+     * Extract class name from full import path
+     */
+    private static String getClassNameFromImport(String fullImport) {
+        int lastDot = fullImport.lastIndexOf('.');
+        return (lastDot >= 0) ? fullImport.substring(lastDot + 1) : fullImport;
+    }
+}
@@ -0,0 +1,15 @@
+package org.sudu.protogen.generator.field.visibility;
+
+/**
+ * How the java sources are read by the visibility analysis
+ */
+public enum SourceEngine {
+    /**
+     * {@link DeclarationScanner}, falling back to JavaParser for the files it can't read
+     */
+    SCANNER,
+    /**
+     * A full JavaParser parse of every file
+     */
+    JAVAPARSER
+}
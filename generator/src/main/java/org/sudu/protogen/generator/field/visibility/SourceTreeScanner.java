@@ -0,0 +1,186 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects all {@code .java} files under a set of source roots and discovers the source roots of a workspace.
+ * Every directory is listed by its own fork-join task, so wide source trees are scanned by all available cores.
+ */
+public final class SourceTreeScanner {
+
+    private static final String JAVA_EXTENSION = ".java";
+
+    /**
+     * Output and VCS directories never contain sources worth analyzing, but may be huge
+     */
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of("build", "target", ".git");
+
+    private SourceTreeScanner() {
+    }
+
+    /**
+     * @param roots source roots to scan, missing roots are ignored
+     * @return every java file found, paired with the root it was found in
+     */
+    @NotNull
+    public static List<SourceFile> scan(@NotNull Iterable<Path> roots) {
+        Queue<SourceFile> found = new ConcurrentLinkedQueue<>();
+        List<DirectoryTask> tasks = new ArrayList<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                tasks.add(new DirectoryTask(root, root, found));
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Finds the source roots of the projects directly under the workspace: {@code src/main/java} for Maven and
+     * Gradle projects, {@code src} for Eclipse ones if it contains java files. Projects are probed in parallel,
+     * the found roots and the time spent are reported on stderr.
+     *
+     * @return the found roots, sorted
+     */
+    @NotNull
+    public static List<Path> discoverSourceRoots(@NotNull Path workspace) {
+        long start = System.nanoTime();
+        if (!Files.isDirectory(workspace)) {
+            System.err.println("Workspace path is not a directory: " + workspace);
+            return List.of();
+        }
+        List<Path> projects = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(workspace)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry) && !SKIPPED_DIRECTORIES.contains(entry.getFileName().toString())) {
+                    projects.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list workspace " + workspace + ": " + e.getMessage());
+            return List.of();
+        }
+        List<DiscoveredRoot> discovered = projects.parallelStream()
+                .map(SourceTreeScanner::findSourceRoot)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(DiscoveredRoot::path))
+                .toList();
+        for (DiscoveredRoot root : discovered) {
+            System.err.println("Found " + root.layout() + " project: " + root.path());
+        }
+        System.err.println("Discovered " + discovered.size() + " source roots among " + projects.size()
+                + " projects of " + workspace + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        return discovered.stream().map(DiscoveredRoot::path).toList();
+    }
+
+    @Nullable
+    private static DiscoveredRoot findSourceRoot(Path project) {
+        Path srcMain = project.resolve("src/main/java");
+        if (Files.isDirectory(srcMain)) {
+            return new DiscoveredRoot(srcMain.toAbsolutePath(), "Maven");
+        }
+        Path src = project.resolve("src");
+        if (Files.isDirectory(src) && containsJavaFiles(src)) {
+            return new DiscoveredRoot(src.toAbsolutePath(), "Eclipse");
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether there is a java file under the directory. The scan stops as soon as one is found.
+     */
+    public static boolean containsJavaFiles(@NotNull Path directory) {
+        AtomicBoolean found = new AtomicBoolean();
+        ForkJoinPool.commonPool().invoke(new ProbeTask(directory, found));
+        return found.get();
+    }
+
+    public record SourceFile(@NotNull Path root, @NotNull Path file) {
+    }
+
+    private record DiscoveredRoot(Path path, String layout) {
+    }
+
+    private static final class DirectoryTask extends RecursiveAction {
+
+        private final Path root;
+        private final Path directory;
+        private final Queue<SourceFile> found;
+
+        private DirectoryTask(Path root, Path directory, Queue<SourceFile> found) {
+            this.root = root;
+            this.directory = directory;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        subdirectories.add(new DirectoryTask(root, entry, found));
+                    } else if (attributes.isRegularFile() && entry.getFileName().toString().endsWith(JAVA_EXTENSION)) {
+                        found.add(new SourceFile(root, entry));
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to list directory " + directory + ": " + e.getMessage());
+            }
+            invokeAll(subdirectories);
+        }
+    }
+
+    private static final class ProbeTask extends RecursiveAction {
+
+        private final Path directory;
+        private final AtomicBoolean found;
+
+        private ProbeTask(Path directory, AtomicBoolean found) {
+            this.directory = directory;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (found.get()) return;
+            List<ProbeTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isRegularFile() && name.endsWith(JAVA_EXTENSION)) {
+                        found.set(true);
+                        return;
+                    }
+                    if (attributes.isDirectory() && !SKIPPED_DIRECTORIES.contains(name)) {
+                        subdirectories.add(new ProbeTask(entry, found));
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to list directory " + directory + ": " + e.getMessage());
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
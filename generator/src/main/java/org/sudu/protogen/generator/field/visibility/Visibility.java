@@ -0,0 +1,27 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import java.lang.reflect.Modifier;
+
+public enum Visibility {
+    PUBLIC,
+    PROTECTED,
+    PACKAGE_PRIVATE,
+    PRIVATE;
+
+    /**
+     * @param modifiers modifier flags as defined by {@link Modifier}
+     */
+    public static Visibility fromModifiers(int modifiers) {
+        if (Modifier.isPublic(modifiers)) return PUBLIC;
+        if (Modifier.isProtected(modifiers)) return PROTECTED;
+        if (Modifier.isPrivate(modifiers)) return PRIVATE;
+        return PACKAGE_PRIVATE;
+    }
+
+    /**
+     * Inherited fields declared with such a visibility are read through their getters
+     */
+    public boolean isHidden() {
+        return this == PRIVATE || this == PROTECTED;
+    }
+}
@@ -0,0 +1,351 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Persists the analyzed classes between plugin runs.
+ * <p>
+ * Every class is stored with its flattened field table and the stamps of the source files of its superclass chain.
+ * A stored class is reused only while all these files keep their content: files having the same size and
+ * modification time are trusted, the others are hashed and compared with the stored content hash. Classes read from
+ * a jar are stamped by the CRC and the size of their entry rather than by the whole jar.
+ * <p>
+ * Stamps and checks are done once per file and per run, whatever the number of classes sharing the file.
+ * <p>
+ * Superclasses none of the resolvers knew, e.g. read by reflection, are stored by name: the entry is only reused
+ * while they stay unknown. The whole store is dropped when the settings of the analysis change.
+ */
+public final class VisibilityCacheStore {
+
+    private static final int MAGIC = 0x50475643; // PGVC
+
+    private static final int FORMAT_VERSION = 3;
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final Path location;
+
+    private final String configurationFingerprint;
+
+    private final Map<String, CachedClass> classes;
+
+    private final Map<ClassDeclaration.Source, Boolean> verifiedFiles = new ConcurrentHashMap<>();
+
+    private final Map<ClassDeclaration.Source, SourceStamp> stamps = new ConcurrentHashMap<>();
+
+    /**
+     * CRC and size of every entry of the jars met during the run, read from their central directory
+     */
+    private final Map<Path, Map<String, byte[]>> jarEntries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    private volatile boolean dirty;
+
+    private VisibilityCacheStore(Path location, String configurationFingerprint, Map<String, CachedClass> classes) {
+        this.location = location;
+        this.configurationFingerprint = configurationFingerprint;
+        this.classes = classes;
+    }
+
+    /**
+     * Loads the store from the file. Missing, outdated or broken files give an empty store, as well as files written
+     * with other settings.
+     *
+     * @param configurationFingerprint identifies the settings the classes were resolved with
+     */
+    @NotNull
+    public static VisibilityCacheStore load(@NotNull Path location, @NotNull String configurationFingerprint) {
+        Map<String, CachedClass> classes = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location)))) {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION && in.readUTF().equals(configurationFingerprint)) {
+                int classCount = in.readInt();
+                for (int i = 0; i < classCount; ++i) {
+                    CachedClass cachedClass = readClass(in);
+                    classes.put(cachedClass.className(), cachedClass);
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+            // First run
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable visibility cache " + location + ": " + e.getMessage());
+            classes.clear();
+        }
+        return new VisibilityCacheStore(location, configurationFingerprint, classes);
+    }
+
+    /**
+     * @param className    the name the class was stored with, possibly a simple one
+     * @param source       where the resolvers would read the class from now
+     * @param isUnresolved tells whether a superclass is still unknown to the resolvers
+     * @return the stored fields of the class if the name still stands for the same class
+     * and none of the source files of its hierarchy has changed
+     */
+    @Nullable
+    public Map<String, FieldVisibility> lookup(@NotNull String className, @NotNull ClassDeclaration.Source source,
+                                               @NotNull Predicate<String> isUnresolved) {
+        CachedClass cachedClass = classes.get(className);
+        if (cachedClass == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        // A class of the same name added to another root may now be the one found
+        boolean upToDate = !cachedClass.hierarchy().isEmpty() && cachedClass.hierarchy().get(0).source().equals(source)
+                && cachedClass.hierarchy().stream().allMatch(this::isUpToDate)
+                && cachedClass.unresolvedSuperclasses().stream().allMatch(isUnresolved);
+        if (!upToDate) {
+            classes.remove(className, cachedClass);
+            misses.incrementAndGet();
+            staleEntries.incrementAndGet();
+            dirty = true;
+            return null;
+        }
+        hits.incrementAndGet();
+        return cachedClass.fields();
+    }
+
+    /**
+     * @param hierarchy               where the class and its superclasses were read from
+     * @param unresolvedSuperclasses the superclasses of the hierarchy none of the resolvers knew
+     */
+    public void store(@NotNull String className, @NotNull List<ClassDeclaration.Source> hierarchy,
+                      @NotNull Collection<String> unresolvedSuperclasses, @NotNull Map<String, FieldVisibility> fields) {
+        try {
+            List<SourceStamp> hierarchyStamps = new ArrayList<>(hierarchy.size());
+            for (ClassDeclaration.Source source : hierarchy) {
+                hierarchyStamps.add(stamp(source));
+            }
+            classes.put(className, new CachedClass(className, hierarchyStamps, List.copyOf(unresolvedSuperclasses),
+                    Collections.unmodifiableMap(new LinkedHashMap<>(fields))));
+            dirty = true;
+        } catch (IOException e) {
+            System.err.println("Unable to stamp the sources of " + className + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the store if it has changed since it was loaded
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) return;
+        Path directory = location.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, location.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            List<CachedClass> snapshot = new ArrayList<>(classes.values());
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(configurationFingerprint);
+            out.writeInt(snapshot.size());
+            for (CachedClass cachedClass : snapshot) {
+                writeClass(out, cachedClass);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, location, StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+
+    /**
+     * Forgets which source files were found up to date, a store kept between runs checks them again
+     */
+    public void revalidate() {
+        verifiedFiles.clear();
+        stamps.clear();
+        jarEntries.clear();
+    }
+
+    @NotNull
+    public Path getLocation() {
+        return location;
+    }
+
+    @NotNull
+    public String getConfigurationFingerprint() {
+        return configurationFingerprint;
+    }
+
+    @NotNull
+    public Statistics statistics() {
+        return new Statistics(classes.size(), hits.get(), misses.get(), staleEntries.get());
+    }
+
+    private boolean isUpToDate(SourceStamp stamp) {
+        Boolean verified = verifiedFiles.get(stamp.source());
+        if (verified != null) {
+            return verified;
+        }
+        boolean upToDate;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(stamp.source().file(), BasicFileAttributes.class);
+            boolean sameAttributes = attributes.size() == stamp.size() && attributes.lastModifiedTime().toMillis() == stamp.modified();
+            // A rebuilt jar changes as a whole, its entries are compared one by one
+            upToDate = sameAttributes || (stamp.source().entry() != null || attributes.size() == stamp.size())
+                    && Arrays.equals(contentHash(stamp.source()), stamp.contentHash());
+        } catch (IOException e) {
+            upToDate = false;
+        }
+        verifiedFiles.put(stamp.source(), upToDate);
+        return upToDate;
+    }
+
+    private SourceStamp stamp(ClassDeclaration.Source source) throws IOException {
+        SourceStamp stamp = stamps.get(source);
+        if (stamp == null) {
+            BasicFileAttributes attributes = Files.readAttributes(source.file(), BasicFileAttributes.class);
+            stamp = new SourceStamp(source, attributes.size(), attributes.lastModifiedTime().toMillis(), contentHash(source));
+            stamps.put(source, stamp);
+            verifiedFiles.put(source, true);
+        }
+        return stamp;
+    }
+
+    /**
+     * @return the hash of a file, the CRC and the size of a jar entry
+     */
+    private byte[] contentHash(ClassDeclaration.Source source) throws IOException {
+        if (source.entry() == null) {
+            return hash(source.file());
+        }
+        Map<String, byte[]> entries = jarEntries.get(source.file());
+        if (entries == null) {
+            entries = readJarEntries(source.file());
+            jarEntries.put(source.file(), entries);
+        }
+        byte[] entry = entries.get(source.entry());
+        if (entry == null) {
+            throw new NoSuchFileException(source.toString());
+        }
+        return entry;
+    }
+
+    private static Map<String, byte[]> readJarEntries(Path jar) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+                entries.put(entry.getName(), ByteBuffer.allocate(16).putLong(entry.getCrc()).putLong(entry.getSize()).array());
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] hash(Path file) throws IOException {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(Files.readAllBytes(file));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeClass(DataOutputStream out, CachedClass cachedClass) throws IOException {
+        out.writeUTF(cachedClass.className());
+        out.writeShort(cachedClass.hierarchy().size());
+        for (SourceStamp stamp : cachedClass.hierarchy()) {
+            out.writeUTF(stamp.source().file().toString());
+            out.writeUTF(stamp.source().entry() == null ? "" : stamp.source().entry());
+            out.writeLong(stamp.size());
+            out.writeLong(stamp.modified());
+            out.writeByte(stamp.contentHash().length);
+            out.write(stamp.contentHash());
+        }
+        out.writeShort(cachedClass.unresolvedSuperclasses().size());
+        for (String superclass : cachedClass.unresolvedSuperclasses()) {
+            out.writeUTF(superclass);
+        }
+        out.writeInt(cachedClass.fields().size());
+        for (FieldVisibility field : cachedClass.fields().values()) {
+            out.writeUTF(field.name());
+            out.writeUTF(field.declaringClass());
+            out.writeByte(field.visibility().ordinal());
+            out.writeBoolean(field.inherited());
+            // Kept for readers of the file, it is derived from the other columns
+            out.writeBoolean(field.needGetter());
+        }
+    }
+
+    private static CachedClass readClass(DataInputStream in) throws IOException {
+        String className = in.readUTF();
+        int hierarchySize = in.readUnsignedShort();
+        List<SourceStamp> hierarchy = new ArrayList<>(hierarchySize);
+        for (int i = 0; i < hierarchySize; ++i) {
+            Path file = Path.of(in.readUTF());
+            String entry = in.readUTF();
+            long size = in.readLong();
+            long modified = in.readLong();
+            byte[] contentHash = new byte[in.readUnsignedByte()];
+            in.readFully(contentHash);
+            hierarchy.add(new SourceStamp(new ClassDeclaration.Source(file, entry.isEmpty() ? null : entry), size, modified, contentHash));
+        }
+        int unresolvedCount = in.readUnsignedShort();
+        List<String> unresolvedSuperclasses = new ArrayList<>(unresolvedCount);
+        for (int i = 0; i < unresolvedCount; ++i) {
+            unresolvedSuperclasses.add(in.readUTF());
+        }
+        int fieldCount = in.readInt();
+        Map<String, FieldVisibility> fields = new LinkedHashMap<>();
+        for (int i = 0; i < fieldCount; ++i) {
+            String name = in.readUTF();
+            String declaringClass = in.readUTF();
+            int visibilityOrdinal = in.readUnsignedByte();
+            if (visibilityOrdinal >= Visibility.values().length) {
+                throw new IOException("Unknown visibility " + visibilityOrdinal);
+            }
+            Visibility visibility = Visibility.values()[visibilityOrdinal];
+            boolean inherited = in.readBoolean();
+            in.readBoolean();
+            fields.put(name, new FieldVisibility(name, declaringClass, visibility, inherited));
+        }
+        return new CachedClass(className, hierarchy, unresolvedSuperclasses, Collections.unmodifiableMap(fields));
+    }
+
+    private record CachedClass(String className, List<SourceStamp> hierarchy, List<String> unresolvedSuperclasses,
+                               Map<String, FieldVisibility> fields) {
+    }
+
+    /**
+     * @param size     the size of the file, or of the jar
+     * @param modified the modification time of the file, or of the jar
+     */
+    private record SourceStamp(ClassDeclaration.Source source, long size, long modified, byte[] contentHash) {
+    }
+
+    /**
+     * @param misses       the classes looked up but not stored or stale
+     * @param staleEntries the stored classes dropped because a file of their hierarchy changed, or their name now
+     *                     stands for another class
+     */
+    public record Statistics(int classes, long hits, long misses, long staleEntries) {
+
+        /**
+         * @return the lookups done since {@code start} was taken, along with the current number of classes
+         */
+        public Statistics since(Statistics start) {
+            return new Statistics(classes, hits - start.hits, misses - start.misses, staleEntries - start.staleEntries);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.sudu.protogen.generator.profiling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.sudu.protogen.generator.DescriptorGenerator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the phases of a generation run. Every measured span is committed as a {@link PhaseEvent} when JFR records
+ * them, a collecting profile also sums the spans up by phase for the {@link GenerationReport}. Spans may be measured
+ * from any thread, the allocations are the ones of the measuring thread.
+ */
+public final class GenerationProfile {
+
+    private static final int SLOWEST_MESSAGES = 20;
+
+    /**
+     * Type resolutions call each other, only the outermost one is measured
+     */
+    private static final ThreadLocal<int[]> RESOLUTION_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final boolean collecting;
+
+    private final long startNanos = System.nanoTime();
+
+    private final Map<Phase, Totals> phases = new EnumMap<>(Phase.class);
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private final Queue<GenerationReport.MessageTiming> messages = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, DescriptorGenerator.Statistics> caches = new ConcurrentHashMap<>();
+
+    private GenerationProfile(boolean collecting) {
+        this.collecting = collecting;
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new Totals());
+        }
+    }
+
+    /**
+     * Only commits the JFR events
+     */
+    @NotNull
+    public static GenerationProfile disabled() {
+        return new GenerationProfile(false);
+    }
+
+    /**
+     * Also keeps what is needed for the report
+     */
+    @NotNull
+    public static GenerationProfile collecting() {
+        return new GenerationProfile(true);
+    }
+
+    @NotNull
+    public Span start(@NotNull Phase phase) {
+        return start(phase, null);
+    }
+
+    @NotNull
+    public Span start(@NotNull Phase phase, @Nullable String subject) {
+        PhaseEvent event = new PhaseEvent();
+        if (!collecting && !event.isEnabled()) {
+            return Span.NONE;
+        }
+        return open(phase, subject, event);
+    }
+
+    /**
+     * Starts a {@link Phase#TYPE_RESOLUTION} span unless the thread is already resolving a type.
+     * The span has to be ended in a {@code finally} block.
+     */
+    @NotNull
+    public Span startResolution(@NotNull String subject) {
+        PhaseEvent event = new PhaseEvent();
+        if (!collecting && !event.isEnabled()) {
+            return Span.NONE;
+        }
+        int[] depth = RESOLUTION_DEPTH.get();
+        if (depth[0]++ > 0) {
+            return Span.NESTED_RESOLUTION;
+        }
+        return open(Phase.TYPE_RESOLUTION, subject, event);
+    }
+
+    private Span open(Phase phase, @Nullable String subject, PhaseEvent event) {
+        event.begin();
+        return new Span(this, phase, subject, event, collecting ? Allocations.current() : 0);
+    }
+
+    /**
+     * Adds a phase measured by someone else, e.g. the parsing of the request, its allocations are unknown
+     */
+    public void record(@NotNull Phase phase, long nanos, long items) {
+        if (collecting) {
+            phases.get(phase).add(nanos, -1, items);
+        }
+    }
+
+    /**
+     * @param measurement the building of the spec of the message
+     */
+    public void recordMessage(@NotNull String name, @NotNull String protoFile, @NotNull Measurement measurement) {
+        if (collecting) {
+            messages.add(new GenerationReport.MessageTiming(name, protoFile, millis(measurement.nanos()), measurement.allocatedBytes()));
+        }
+    }
+
+    public void count(@NotNull String name, long amount) {
+        if (collecting) {
+            counts.computeIfAbsent(name, $ -> new LongAdder()).add(amount);
+        }
+    }
+
+    public void recordCaches(@NotNull Map<String, DescriptorGenerator.Statistics> statistics) {
+        if (collecting) {
+            caches.putAll(statistics);
+        }
+    }
+
+    @NotNull
+    public GenerationReport report() {
+        Map<String, GenerationReport.PhaseSummary> phaseSummaries = new LinkedHashMap<>();
+        phases.forEach((phase, totals) -> phaseSummaries.put(phase.id(), totals.summary()));
+        Map<String, Long> countValues = new TreeMap<>();
+        counts.forEach((name, count) -> countValues.put(name, count.sum()));
+        Map<String, GenerationReport.CacheSummary> cacheSummaries = new TreeMap<>();
+        caches.forEach((name, statistics) -> cacheSummaries.put(name, new GenerationReport.CacheSummary(
+                statistics.hits(), statistics.misses(), statistics.size(), statistics.hitRate())));
+        List<GenerationReport.MessageTiming> slowest = messages.stream()
+                .sorted(Comparator.comparingDouble(GenerationReport.MessageTiming::millis).reversed())
+                .limit(SLOWEST_MESSAGES)
+                .toList();
+        return new GenerationReport(millis(System.nanoTime() - startNanos), phaseSummaries, countValues, cacheSummaries, slowest);
+    }
+
+    public void writeReport(@NotNull Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * @param allocatedBytes {@code -1} when unknown
+     */
+    public record Measurement(long nanos, long allocatedBytes) {
+
+        private static final Measurement NONE = new Measurement(0, -1);
+    }
+
+    public static final class Span {
+
+        private static final Span NONE = new Span(null, null, null, null, 0);
+
+        private static final Span NESTED_RESOLUTION = new Span(null, Phase.TYPE_RESOLUTION, null, null, 0);
+
+        private final GenerationProfile profile;
+
+        private final Phase phase;
+
+        private final String subject;
+
+        private final PhaseEvent event;
+
+        private final long startNanos = System.nanoTime();
+
+        private final long startAllocated;
+
+        private Span(GenerationProfile profile, Phase phase, String subject, PhaseEvent event, long startAllocated) {
+            this.profile = profile;
+            this.phase = phase;
+            this.subject = subject;
+            this.event = event;
+            this.startAllocated = startAllocated;
+        }
+
+        @NotNull
+        public Measurement end() {
+            return end(1);
+        }
+
+        @NotNull
+        public Measurement end(long items) {
+            if (phase == Phase.TYPE_RESOLUTION) {
+                RESOLUTION_DEPTH.get()[0]--;
+            }
+            if (profile == null) {
+                return Measurement.NONE;
+            }
+            long nanos = System.nanoTime() - startNanos;
+            event.phase = phase.id();
+            event.subject = subject;
+            event.items = items;
+            event.commit();
+            if (!profile.collecting) {
+                return new Measurement(nanos, -1);
+            }
+            long allocated = Allocations.SUPPORTED ? Allocations.current() - startAllocated : -1;
+            profile.phases.get(phase).add(nanos, allocated, items);
+            return new Measurement(nanos, allocated);
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder nanos = new LongAdder();
+
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private final LongAdder items = new LongAdder();
+
+        private volatile boolean allocationsUnknown;
+
+        void add(long nanos, long allocatedBytes, long items) {
+            this.nanos.add(nanos);
+            this.items.add(items);
+            if (allocatedBytes < 0) {
+                allocationsUnknown = true;
+            } else {
+                this.allocatedBytes.add(allocatedBytes);
+            }
+        }
+
+        GenerationReport.PhaseSummary summary() {
+            return new GenerationReport.PhaseSummary(millis(nanos.sum()), allocationsUnknown ? -1 : allocatedBytes.sum(), items.sum());
+        }
+    }
+
+    /**
+     * The management beans are only loaded by the runs writing a report
+     */
+    private static final class Allocations {
+
+        private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static final boolean SUPPORTED = THREADS != null;
+
+        private static com.sun.management.ThreadMXBean threads() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+            return null;
+        }
+
+        static long current() {
+            return SUPPORTED ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.sudu.protogen.generator.profiling;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The summary of a generation run written to the {@code report=} file. Times are in milliseconds, the phases worked
+ * on by many threads sum the times of the threads up. Allocations are the bytes allocated by the measuring threads,
+ * {@code -1} when unknown.
+ *
+ * @param wallMillis      from the start of the run to the end of the generation
+ * @param phases          by {@link Phase#id()}
+ * @param counts          what the run went through: proto files, types, services, output files and bytes
+ * @param caches          the statistics of the caches of the run, by cache name
+ * @param slowestMessages the top-level messages whose specs took the longest to build, nested messages included
+ */
+public record GenerationReport(
+        double wallMillis,
+        Map<String, PhaseSummary> phases,
+        Map<String, Long> counts,
+        Map<String, CacheSummary> caches,
+        List<MessageTiming> slowestMessages
+) {
+
+    public record PhaseSummary(double millis, long allocatedBytes, long items) {
+    }
+
+    public record CacheSummary(long hits, long misses, int size, double hitRate) {
+    }
+
+    public record MessageTiming(String name, String protoFile, double millis, long allocatedBytes) {
+    }
+}
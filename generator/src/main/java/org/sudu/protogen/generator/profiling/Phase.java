@@ -0,0 +1,31 @@
+package org.sudu.protogen.generator.profiling;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The phases of a generation run, in the order they start. The type resolution is a part of the spec building.
+ */
+public enum Phase {
+    CONFIG_LOAD("configLoad"),
+    REQUEST_PARSE("requestParse"),
+    DESCRIPTOR_BUILD("descriptorBuild"),
+    TYPE_RESOLUTION("typeResolution"),
+    TYPE_SPECS("typeSpecs"),
+    SERVICE_SPECS("serviceSpecs"),
+    RENDERING("rendering"),
+    RESPONSE_WRITE("responseWrite");
+
+    private final String id;
+
+    Phase(String id) {
+        this.id = id;
+    }
+
+    /**
+     * The name of the phase in the JFR events and in the report
+     */
+    @NotNull
+    public String id() {
+        return id;
+    }
+}
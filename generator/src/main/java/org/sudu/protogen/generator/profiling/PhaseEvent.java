@@ -0,0 +1,25 @@
+package org.sudu.protogen.generator.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.sudu.protogen.Phase")
+@Label("Generation Phase")
+@Category("Protogen")
+@Description("A phase of the generation, or the part of a phase working on one type")
+@StackTrace(false)
+class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Subject")
+    @Description("The type or the file the phase worked on, if any")
+    String subject;
+
+    @Label("Items")
+    long items;
+}
@@ -0,0 +1,83 @@
+package org.sudu.protogen.generator.type;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeName;
+import org.jetbrains.annotations.NotNull;
+import org.sudu.protogen.config.RegisteredTransformer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link RegisteredTransformer.TransformRule} split once into its placeholders:
+ * {@code $L} is the transformed expression, {@code $T} the java type and every {@code $t} the next rule parameter.
+ */
+public final class TransformTemplate {
+
+    private final List<Segment> segments;
+
+    private final TypeName[] params;
+
+    private TransformTemplate(List<Segment> segments, TypeName[] params) {
+        this.segments = segments;
+        this.params = params;
+    }
+
+    @NotNull
+    public static TransformTemplate compile(@NotNull RegisteredTransformer.TransformRule transformRule) {
+        String rule = transformRule.rule();
+        List<Segment> segments = new ArrayList<>();
+        int paramIt = 0;
+        int literalStart = 0;
+        int i = 0;
+        while (i < rule.length() - 1) {
+            Segment placeholder = null;
+            if (rule.charAt(i) == '$') {
+                placeholder = switch (rule.charAt(i + 1)) {
+                    case 'L' -> new Segment(Kind.EXPRESSION, null, -1);
+                    case 'T' -> new Segment(Kind.TYPE, null, -1);
+                    case 't' -> new Segment(Kind.PARAM, null, paramIt++);
+                    default -> null;
+                };
+            }
+            if (placeholder == null) {
+                ++i;
+                continue;
+            }
+            if (literalStart < i) {
+                segments.add(new Segment(Kind.LITERAL, rule.substring(literalStart, i), -1));
+            }
+            segments.add(placeholder);
+            i += 2;
+            literalStart = i;
+        }
+        if (literalStart < rule.length()) {
+            segments.add(new Segment(Kind.LITERAL, rule.substring(literalStart), -1));
+        }
+        return new TransformTemplate(List.copyOf(segments), transformRule.params());
+    }
+
+    @NotNull
+    public CodeBlock expand(@NotNull CodeBlock l, @NotNull TypeName t) {
+        CodeBlock.Builder codeBuilder = CodeBlock.builder();
+        for (Segment segment : segments) {
+            switch (segment.kind()) {
+                case EXPRESSION -> codeBuilder.add("$L", l);
+                case TYPE -> codeBuilder.add("$T", t);
+                case PARAM -> codeBuilder.add("$T", params[segment.param()]);
+                case LITERAL -> codeBuilder.add(segment.literal());
+            }
+        }
+        return codeBuilder.build();
+    }
+
+    private enum Kind {
+        LITERAL,
+        EXPRESSION,
+        TYPE,
+        PARAM
+    }
+
+    private record Segment(Kind kind, String literal, int param) {
+    }
+}
@@ -4,11 +4,13 @@ import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.TypeName;
 import org.sudu.protogen.utils.Name;
 
+import java.util.List;
 import java.util.Set;
 
 public class TypeModel {
 
-    private final Set<String> possibleDefinitions = Set.of("i", "$$i", "j", "$$j");
+    // A list, the iteration order of Set.of changes from a run to another and so would the generated code
+    private static final List<String> POSSIBLE_DEFINITIONS = List.of("i", "$$i", "j", "$$j");
 
     private final TypeName typeName;
 
@@ -45,7 +47,7 @@ public class TypeModel {
     }
 
     protected final String nextDefinition(Set<String> usedDefinitions) {
-        for (String def : possibleDefinitions) {
+        for (String def : POSSIBLE_DEFINITIONS) {
             if (usedDefinitions.contains(def)) continue;
             return def;
         }
@@ -6,27 +6,80 @@ import org.sudu.protogen.config.RegisteredTransformer;
 import org.sudu.protogen.descriptors.EnumOrMessage;
 import org.sudu.protogen.generator.GenerationContext;
 import org.sudu.protogen.generator.type.RegisteredType;
+import org.sudu.protogen.generator.type.TransformTemplate;
 import org.sudu.protogen.generator.type.TypeModel;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 public class RegisteredTypeProcessor extends TypeProcessor.Chain {
 
+    /**
+     * A {@code protoType} made of name characters only is a plain type name, anything else is a pattern
+     */
+    private static final Pattern PLAIN_NAME = Pattern.compile("[\\w.]+");
+
+    private final Map<String, Registration> byExactName = new HashMap<>();
+
+    private final List<Registration> byPattern = new ArrayList<>();
+
     public RegisteredTypeProcessor(GenerationContext context) {
         super(context);
+        List<RegisteredTransformer> registered = context.configuration().registeredTransformers();
+        for (int i = 0; i < registered.size(); ++i) {
+            RegisteredTransformer transformer = registered.get(i);
+            String protoType = transformer.protoType();
+            boolean plainName = PLAIN_NAME.matcher(protoType).matches();
+            Registration registration = new Registration(
+                    i,
+                    plainName ? null : Pattern.compile(protoType),
+                    transformer,
+                    TransformTemplate.compile(transformer.protoToJava()),
+                    TransformTemplate.compile(transformer.javaToProto())
+            );
+            if (plainName) {
+                byExactName.putIfAbsent(protoType, registration);
+            } else {
+                byPattern.add(registration);
+            }
+        }
     }
 
     @Override
     public @Nullable TypeModel processType(@NotNull EnumOrMessage type) {
-        List<RegisteredTransformer> registered = getContext().configuration().registeredTransformers();
-        for (var transformer : registered) {
-            if (!type.getFullName().matches(transformer.protoType())) continue;
-            return new RegisteredType(
-                    transformer.javaClass(),
-                    type.getProtobufTypeName(),
-                    transformer
-            );
+        Registration registration = find(type.getFullName());
+        if (registration == null) {
+            return next(type);
         }
-        return next(type);
+        return new RegisteredType(
+                registration.transformer().javaClass(),
+                type.getProtobufTypeName(),
+                registration.protoToJava(),
+                registration.javaToProto()
+        );
+    }
+
+    /**
+     * The first registered transformer matching the name wins, whether it is a plain name or a pattern
+     */
+    private @Nullable Registration find(String fullName) {
+        Registration exact = byExactName.get(fullName);
+        for (Registration registration : byPattern) {
+            if (exact != null && registration.position() > exact.position()) break;
+            if (registration.pattern().matcher(fullName).matches()) return registration;
+        }
+        return exact;
+    }
+
+    private record Registration(
+            int position,
+            @Nullable Pattern pattern,
+            RegisteredTransformer transformer,
+            TransformTemplate protoToJava,
+            TransformTemplate javaToProto
+    ) {
     }
 }
@@ -0,0 +1,142 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.compiler.PluginProtos;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the generators over recorded requests without protoc: {@code CodeGeneratorRequest} dumps and
+ * {@code FileDescriptorSet}s, every file of a set being generated. The inputs are generated one after the other
+ * in the same JVM, the files are written to the output directory by a pool of threads while the generation goes on.
+ * <p>
+ * A failing input doesn't stop the other ones, the failures are reported on stderr and in the result.
+ */
+@SuppressWarnings("rawtypes")
+public final class BatchRunner {
+
+    private BatchRunner() {
+    }
+
+    /**
+     * @param parameter replaces the parameter of the requests, {@code null} to keep it
+     * @return {@code false} if anything failed
+     */
+    public static boolean run(
+            @NotNull List<Generator> generators,
+            @NotNull Supplier<ExtensionRegistry> extensionRegistry,
+            @NotNull List<Path> inputs,
+            @NotNull Path outputDirectory,
+            @Nullable String parameter
+    ) {
+        Validate.notNull(generators, "generators");
+        Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
+        Validate.notNull(extensionRegistry, "extensionRegistry");
+        Validate.notNull(inputs, "inputs");
+        Validate.notNull(outputDirectory, "outputDirectory");
+
+        long start = System.nanoTime();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        // Inputs sharing imports produce the same files, each one is written once
+        Map<String, ByteString> contentDigests = new ConcurrentHashMap<>();
+        ExecutorService writers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "protogen-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Path input : inputs) {
+                List<Future<?>> writes = new ArrayList<>();
+                try {
+                    RequestReader.ReadRequest readRequest = read(input, extensionRegistry.get());
+                    PluginProtos.CodeGeneratorRequest request = parameter == null
+                            ? readRequest.request()
+                            : readRequest.request().toBuilder().setParameter(parameter).build();
+                    System.err.println(input + ": " + readRequest);
+                    for (Generator generator : generators) {
+                        generator.generateFiles(request, readRequest.statistics(), file -> {
+                            Validate.validState(StringUtils.isEmpty(file.getInsertionPoint()),
+                                    "Insertion points are not supported: %s", file.getName());
+                            ByteString digest = digest(file.getContentBytes());
+                            ByteString previous = contentDigests.putIfAbsent(file.getName(), digest);
+                            if (previous == null) {
+                                writes.add(writers.submit(() -> write(outputDirectory.resolve(file.getName()), file)));
+                            } else if (!previous.equals(digest)) {
+                                throw new IllegalStateException("Different contents generated for " + file.getName());
+                            }
+                        });
+                    }
+                } catch (Exception ex) {
+                    errors.incrementAndGet();
+                    System.err.println(input + ": failed");
+                    ex.printStackTrace(System.err);
+                }
+                for (Future<?> write : writes) {
+                    try {
+                        write.get();
+                        written.incrementAndGet();
+                    } catch (ExecutionException ex) {
+                        errors.incrementAndGet();
+                        System.err.println(input + ": " + ex.getCause());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            writers.shutdown();
+        }
+        System.err.println("Wrote " + written + " files from " + inputs.size() + " inputs in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms, " + errors + " errors");
+        return errors.get() == 0;
+    }
+
+    /**
+     * Tells the requests from the descriptor sets apart: protoc always sends the descriptors of the files to generate,
+     * read as a request a descriptor set has none.
+     */
+    private static RequestReader.ReadRequest read(Path input, ExtensionRegistry extensionRegistry) throws IOException {
+        RequestReader.ReadRequest readRequest = RequestReader.read(input, extensionRegistry);
+        if (readRequest.request().getProtoFileCount() > 0) {
+            return readRequest;
+        }
+        return RequestReader.readDescriptorSet(input, extensionRegistry);
+    }
+
+    private static ByteString digest(ByteString content) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            content.asReadOnlyByteBufferList().forEach(sha256::update);
+            return ByteString.copyFrom(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Void write(Path target, PluginProtos.CodeGeneratorResponse.File file) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.write(target, file.getContentBytes().toByteArray());
+        return null;
+    }
+}
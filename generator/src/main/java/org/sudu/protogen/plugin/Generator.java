@@ -12,6 +12,7 @@ import com.google.protobuf.compiler.PluginProtos;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -41,6 +42,31 @@ public abstract class Generator {
         return Collections.emptyList();
     }
 
+    /**
+     * Processes a generator request, handing every file to the sink as soon as it is complete.
+     * Generators able to produce their files one by one should override this method, so that the files don't have to
+     * be kept in memory until the end of the generation.
+     *
+     * @param request The raw generator request from protoc.
+     * @param sink    Receives the completed files, in order, one at a time.
+     */
+    public void generateFiles(PluginProtos.CodeGeneratorRequest request, Consumer<PluginProtos.CodeGeneratorResponse.File> sink) throws GeneratorException {
+        generateFiles(request).forEach(sink);
+    }
+
+    /**
+     * Same as {@link #generateFiles(PluginProtos.CodeGeneratorRequest, Consumer)}, for the generators reporting on
+     * their runs: they are told how the request was read.
+     *
+     * @param request    The raw generator request from protoc.
+     * @param statistics How the request was read.
+     * @param sink       Receives the completed files, in order, one at a time.
+     */
+    public void generateFiles(PluginProtos.CodeGeneratorRequest request, RequestStatistics statistics,
+                              Consumer<PluginProtos.CodeGeneratorResponse.File> sink) throws GeneratorException {
+        generateFiles(request, sink);
+    }
+
     /**
      * Signals to protoc which additional generator features this Generator supports. By default, this method returns
      * FEATURE_NONE. You must override this method and supply a value, like FEATURE_PROTO3_OPTIONAL.
@@ -0,0 +1,210 @@
+package org.sudu.protogen.plugin;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The protoc side of {@link PluginDaemon}: forwards the request read from stdin to the daemon and copies the response
+ * to stdout once it is complete. It only loads a handful of classes, the generation itself runs in the warm daemon.
+ */
+public final class PluginClient {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private PluginClient() {
+    }
+
+    /**
+     * The socket of the daemon serving this working directory with this build of the generator. Relative paths of
+     * the configuration are resolved against the working directory of the daemon, and a rebuilt generator must not
+     * be served by an outdated daemon.
+     *
+     * @throws IOException if the private directory of the sockets can't be used
+     */
+    @NotNull
+    public static Path defaultSocket() throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(new File("").getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            digest.update(codeStamp().getBytes(StandardCharsets.UTF_8));
+            // Socket paths are limited to about a hundred characters
+            String id = HexFormat.of().formatHex(digest.digest(), 0, 8);
+            return socketDirectory().resolve(id + ".sock");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A directory only the current user can enter: {@code $XDG_RUNTIME_DIR/protogen}, or {@code protogen} in the cache
+     * directory of the user. Anyone able to connect to the socket could read the requests and answer them.
+     */
+    private static Path socketDirectory() throws IOException {
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+        String cacheDirectory = System.getenv("XDG_CACHE_HOME");
+        Path directory;
+        if (runtimeDirectory != null && !runtimeDirectory.isBlank()) {
+            directory = Path.of(runtimeDirectory, "protogen");
+        } else if (cacheDirectory != null && !cacheDirectory.isBlank()) {
+            directory = Path.of(cacheDirectory, "protogen");
+        } else {
+            directory = Path.of(System.getProperty("user.home"), ".cache", "protogen");
+        }
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory.getParent());
+            try {
+                if (posix) {
+                    Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+                } else {
+                    Files.createDirectory(directory);
+                }
+            } catch (FileAlreadyExistsException ignored) {
+                // Created by a concurrent protoc run
+            }
+        }
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException(directory + " is not a directory");
+        }
+        checkOwner(directory);
+        // The permissions asked for at the creation are narrowed by the umask, never widened
+        if (posix && !Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS).equals(OWNER_ONLY)) {
+            Files.setPosixFilePermissions(directory, OWNER_ONLY);
+        }
+        return directory;
+    }
+
+    /**
+     * @throws IOException if the file belongs to another user
+     */
+    static void checkOwner(@NotNull Path path) throws IOException {
+        UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal currentUser = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(currentUser)) {
+            throw new IOException(path + " belongs to " + owner.getName() + ", not to " + currentUser.getName());
+        }
+    }
+
+    /**
+     * @param request  the file of the request, kept by the caller to generate in-process if the daemon fails
+     * @param response the file the response is written to, only complete if this returns {@code true}
+     * @return {@code false} if no daemon listens on the socket
+     * @throws IOException if the socket belongs to another user or the daemon didn't complete the response
+     */
+    public static boolean forward(@NotNull Path socket, @NotNull Path request, @NotNull Path response) throws IOException {
+        SocketChannel channel = connect(socket);
+        if (channel == null) {
+            return false;
+        }
+        try (channel; OutputStream out = Files.newOutputStream(response)) {
+            // The daemon reads the whole request before answering
+            Files.copy(request, Channels.newOutputStream(channel));
+            channel.shutdownOutput();
+            ResponseFrames.read(Channels.newInputStream(channel), out);
+            return true;
+        }
+    }
+
+    /**
+     * @throws IOException if the socket belongs to another user
+     */
+    static boolean isServed(@NotNull Path socket) throws IOException {
+        SocketChannel channel = connect(socket);
+        if (channel == null) {
+            return false;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        return true;
+    }
+
+    /**
+     * Starts a daemon in the background with the classpath of this JVM. It outlives the current process
+     * and logs next to its socket.
+     */
+    public static void startDaemon(@NotNull Path socket, @NotNull String mainClass) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // The daemon starts from the same class data archive as the launcher
+            if (argument.startsWith("-XX:SharedArchiveFile") || argument.startsWith("-Xshare")) {
+                command.add(argument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass);
+        command.add("--daemon");
+        command.add(socket.toString());
+        new ProcessBuilder(command)
+                .redirectInput(ProcessBuilder.Redirect.from(new File(isWindows() ? "NUL" : "/dev/null")))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.appendTo(new File(socket + ".log")))
+                .start();
+    }
+
+    /**
+     * @return {@code null} if no daemon listens on the socket
+     */
+    private static SocketChannel connect(Path socket) throws IOException {
+        if (!Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        // Another user could serve anything to protoc
+        checkOwner(socket);
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            return channel;
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String codeStamp() {
+        CodeSource codeSource = PluginClient.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            return "";
+        }
+        File location = new File(codeSource.getLocation().getPath());
+        return location + ":" + location.length() + ":" + location.lastModified();
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name", "").startsWith("Windows");
+    }
+}
@@ -0,0 +1,185 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.ExtensionRegistry;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serves protoc requests forwarded by {@link PluginClient} over a Unix domain socket, so that the JVM startup,
+ * the class loading and the JIT warmup are paid once for many protoc runs.
+ * <p>
+ * A connection carries one request: the client writes the serialized request and shuts its output down,
+ * the daemon answers with the serialized response in {@link ResponseFrames} and closes the connection. Requests are served concurrently
+ * and don't share anything but what the generators keep themselves. The daemon stops once it has been idle
+ * for the given time.
+ * <p>
+ * Daemons started at the same time take turns on a lock file next to the socket, the first one binds the socket
+ * and the other ones stop. A daemon only deletes the socket it has bound itself.
+ */
+@SuppressWarnings("rawtypes")
+public final class PluginDaemon {
+
+    private PluginDaemon() {
+    }
+
+    public static void serve(
+            @NotNull List<Generator> generators,
+            @NotNull Supplier<ExtensionRegistry> extensionRegistry,
+            @NotNull Path socket,
+            @NotNull Duration idleTimeout
+    ) throws IOException {
+        Validate.notNull(generators, "generators");
+        Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
+        Validate.notNull(extensionRegistry, "extensionRegistry");
+
+        AtomicInteger activeRequests = new AtomicInteger();
+        AtomicLong lastActivity = new AtomicLong(System.nanoTime());
+        ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "protogen-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Object boundSocket = null;
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+             Selector selector = Selector.open()) {
+            try (FileChannel lockFile = openLockFile(socket); FileLock ignored = lockFile.lock()) {
+                if (PluginClient.isServed(socket)) {
+                    System.err.println("A daemon already listens on " + socket);
+                    return;
+                }
+                // Left behind by a daemon that didn't stop cleanly, isServed checked that it is ours
+                Files.deleteIfExists(socket);
+                server.bind(UnixDomainSocketAddress.of(socket));
+                if (isPosix(socket)) {
+                    // The default socket is in a private directory, a socket given explicitly may not be
+                    Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+                }
+                boundSocket = fileKey(socket);
+            }
+            Object bound = boundSocket;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteSocket(socket, bound)));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.err.println("Listening on " + socket + ", stopping after " + idleTimeout.toMinutes() + " idle minutes");
+
+            while (true) {
+                selector.select(Math.max(1, Math.min(idleTimeout.toMillis(), TimeUnit.SECONDS.toMillis(10))));
+                selector.selectedKeys().clear();
+                SocketChannel client;
+                while ((client = server.accept()) != null) {
+                    client.configureBlocking(true);
+                    activeRequests.incrementAndGet();
+                    SocketChannel connection = client;
+                    workers.execute(() -> {
+                        try {
+                            serve(generators, extensionRegistry, connection);
+                        } finally {
+                            lastActivity.set(System.nanoTime());
+                            activeRequests.decrementAndGet();
+                        }
+                    });
+                }
+                if (activeRequests.get() == 0 && System.nanoTime() - lastActivity.get() >= idleTimeout.toNanos()) {
+                    System.err.println("Stopping after " + idleTimeout.toMinutes() + " idle minutes");
+                    break;
+                }
+            }
+        } finally {
+            workers.shutdown();
+            if (boundSocket != null) {
+                deleteSocket(socket, boundSocket);
+            }
+        }
+    }
+
+    /**
+     * Deletes the socket unless another daemon has replaced it, under the lock so that none can replace it meanwhile.
+     * Called by the daemon when it stops and by its shutdown hook, whichever comes first.
+     *
+     * @param boundSocket the file key of the socket when it was bound
+     */
+    private static synchronized void deleteSocket(Path socket, Object boundSocket) {
+        try (FileChannel lockFile = openLockFile(socket); FileLock ignored = lockFile.lock()) {
+            if (boundSocket.equals(fileKey(socket))) {
+                Files.delete(socket);
+            }
+        } catch (IOException ignored) {
+            // Already deleted
+        }
+    }
+
+    /**
+     * The lock file stays, deleting it would let two daemons hold the locks of two different files
+     */
+    private static FileChannel openLockFile(Path socket) throws IOException {
+        Path lockFile = socket.resolveSibling(socket.getFileName() + ".lock");
+        FileAttribute<?>[] attributes = isPosix(socket)
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+                : new FileAttribute<?>[0];
+        return FileChannel.open(lockFile, Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE), attributes);
+    }
+
+    /**
+     * Tells a socket apart from the one bound at the same path by another daemon
+     */
+    private static Object fileKey(Path socket) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static void serve(List<Generator> generators, Supplier<ExtensionRegistry> extensionRegistry, SocketChannel connection) {
+        long accepted = System.nanoTime();
+        try (connection) {
+            ResponseFrames.Writer frames = new ResponseFrames.Writer(Channels.newOutputStream(connection));
+            StreamingResponseWriter writer = new StreamingResponseWriter(frames);
+            try {
+                RequestReader.ReadRequest readRequest =
+                        ProtocPlugin.respond(generators, extensionRegistry, Channels.newInputStream(connection), writer);
+                if (ProtocPlugin.isVerbose(readRequest)) {
+                    System.err.println("Time to first byte: " + writer.timeToFirstByteMillis(accepted) + " ms since the connection");
+                }
+            } catch (IOException ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                // A one-shot plugin would crash, the daemon reports the failure to protoc and keeps serving
+                ex.printStackTrace(System.err);
+                writer.finishWithError(ExceptionUtils.getStackTrace(ex));
+            }
+            frames.finish();
+        } catch (IOException ex) {
+            System.err.println("Request dropped: " + ex.getMessage());
+        }
+    }
+}
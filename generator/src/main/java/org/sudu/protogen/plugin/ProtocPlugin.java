@@ -12,16 +12,24 @@ import com.google.protobuf.GeneratedMessage.GeneratedExtension;
 import com.google.protobuf.compiler.PluginProtos;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
+import org.sudu.protogen.PluginParameters;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -32,6 +40,8 @@ import java.util.stream.Stream;
 @SuppressWarnings("rawtypes")
 public final class ProtocPlugin {
 
+    private static final boolean VERBOSE = Boolean.parseBoolean(System.getenv("PROTOGEN_VERBOSE"));
+
     private ProtocPlugin() {
     }
 
@@ -68,37 +78,104 @@ public final class ProtocPlugin {
         Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
         Validate.notNull(extensions, "extensions");
 
-        // As per https://developers.google.com/protocol-buffers/docs/reference/java-generated#extension,
-        // extensions must be registered in order to be processed.
-        ExtensionRegistry extensionRegistry = ExtensionRegistry.newInstance();
-        for (GeneratedExtension extension : extensions) {
-            extensionRegistry.add(extension);
-        }
+        generate(generators, () -> extensionRegistry(extensions));
+    }
+
+    /**
+     * Apply multiple generators to the parsed proto descriptor, aggregating their results.
+     * The registry of the extensions is only asked for when the request is parsed.
+     *
+     * @param generators        The list of generators to run.
+     * @param extensionRegistry The extensions to register.
+     */
+    public static void generate(
+            @NotNull List<Generator> generators, @NotNull Supplier<ExtensionRegistry> extensionRegistry
+    ) {
+        Validate.notNull(generators, "generators");
+        Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
+        Validate.notNull(extensionRegistry, "extensionRegistry");
 
         try {
-            // Parse the input stream to extract the generator request
-            byte[] generatorRequestBytes = IOUtils.toByteArray(System.in);
-            PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.parseFrom(
-                    generatorRequestBytes, extensionRegistry);
+            StreamingResponseWriter writer = new StreamingResponseWriter(System.out);
+            RequestReader.ReadRequest readRequest = respond(generators, extensionRegistry, System.in, writer);
+            if (isVerbose(readRequest)) {
+                System.err.println("Time to first byte: " + writer.timeToFirstByteMillis(jvmStartNanos()) + " ms since the JVM start");
+            }
+        } catch (Throwable ex) { // Catch all the things!
+            abort(ex);
+        }
+    }
 
-            PluginProtos.CodeGeneratorResponse response = generate(generators, request);
-            response.writeTo(System.out);
+    /**
+     * Apply multiple generators to a request saved in a file rather than read from stdin,
+     * e.g. one the daemon failed to answer. The file is mapped into memory.
+     *
+     * @param generators        The list of generators to run.
+     * @param extensionRegistry The extensions to register.
+     * @param request           The file of the serialized request.
+     */
+    public static void generate(
+            @NotNull List<Generator> generators,
+            @NotNull Supplier<ExtensionRegistry> extensionRegistry,
+            @NotNull Path request
+    ) {
+        Validate.notNull(generators, "generators");
+        Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
+        Validate.notNull(extensionRegistry, "extensionRegistry");
+        Validate.notNull(request, "request");
 
-        } catch (GeneratorException ex) {
-            try {
-                PluginProtos.CodeGeneratorResponse
-                        .newBuilder()
-                        .setError(ex.getMessage())
-                        .build()
-                        .writeTo(System.out);
-            } catch (IOException ex2) {
-                abort(ex2);
+        try {
+            StreamingResponseWriter writer = new StreamingResponseWriter(System.out);
+            RequestReader.ReadRequest readRequest = RequestReader.read(request, extensionRegistry.get());
+            respond(generators, readRequest, writer);
+            if (isVerbose(readRequest)) {
+                System.err.println("Time to first byte: " + writer.timeToFirstByteMillis(jvmStartNanos()) + " ms since the JVM start");
             }
         } catch (Throwable ex) { // Catch all the things!
             abort(ex);
         }
     }
 
+    /**
+     * Reads a request up to the end of the stream and writes the response. Generator failures are reported to protoc.
+     *
+     * @return the request that was answered
+     */
+    static RequestReader.ReadRequest respond(
+            @NotNull List<Generator> generators,
+            @NotNull Supplier<ExtensionRegistry> extensionRegistry,
+            @NotNull InputStream in,
+            @NotNull StreamingResponseWriter writer
+    ) throws IOException {
+        // Parse the input stream to extract the generator request
+        RequestReader.ReadRequest readRequest = RequestReader.read(in, extensionRegistry.get());
+        respond(generators, readRequest, writer);
+        return readRequest;
+    }
+
+    private static void respond(
+            List<Generator> generators,
+            RequestReader.ReadRequest readRequest,
+            StreamingResponseWriter writer
+    ) throws IOException {
+        if (isVerbose(readRequest)) {
+            System.err.println(readRequest);
+        }
+        try {
+            generate(generators, readRequest, writer);
+        } catch (GeneratorException ex) {
+            writer.finishWithError(ex.getMessage());
+        }
+    }
+
+    /**
+     * protoc shows the output of the plugins, the timings are only printed when a report is asked for
+     * or {@code PROTOGEN_VERBOSE} is {@code true}
+     */
+    static boolean isVerbose(@NotNull RequestReader.ReadRequest readRequest) {
+        return VERBOSE || PluginParameters.parse(readRequest.request().getParameter()).report() != null;
+    }
+
     /**
      * Debug a single generator using the parsed proto descriptor.
      *
@@ -136,21 +213,32 @@ public final class ProtocPlugin {
         Validate.notNull(generators, "generators");
         Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
         Validate.notNull(extensions, "extensions");
-        Validate.notNull(dumpPath, "dumpPath");
 
-        // As per https://developers.google.com/protocol-buffers/docs/reference/java-generated#extension,
-        // extensions must be registered in order to be processed.
-        ExtensionRegistry extensionRegistry = ExtensionRegistry.newInstance();
-        for (GeneratedExtension extension : extensions) {
-            extensionRegistry.add(extension);
-        }
+        debug(generators, () -> extensionRegistry(extensions), dumpPath);
+    }
+
+    /**
+     * Debug multiple generators using the parsed proto descriptor, aggregating their results.
+     *
+     * @param generators        The list of generators to run.
+     * @param extensionRegistry The extensions to register.
+     * @param dumpPath          The path to a descriptor dump on the filesystem.
+     */
+    public static void debug(
+            @NotNull List<Generator> generators,
+            @NotNull Supplier<ExtensionRegistry> extensionRegistry,
+            @NotNull String dumpPath
+    ) {
+        Validate.notNull(generators, "generators");
+        Validate.validState(!generators.isEmpty(), "generators.isEmpty()");
+        Validate.notNull(extensionRegistry, "extensionRegistry");
+        Validate.notNull(dumpPath, "dumpPath");
 
         try {
-            byte[] generatorRequestBytes = FileUtils.readFileToByteArray(new File(dumpPath));
-            PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.parseFrom(
-                    generatorRequestBytes, extensionRegistry);
+            RequestReader.ReadRequest readRequest = RequestReader.read(Path.of(dumpPath), extensionRegistry.get());
+            System.err.println(readRequest);
 
-            PluginProtos.CodeGeneratorResponse response = generate(generators, request);
+            PluginProtos.CodeGeneratorResponse response = generate(generators, readRequest);
 
             // Print error if present
             if (!StringUtils.isEmpty(response.getError())) {
@@ -201,7 +289,95 @@ public final class ProtocPlugin {
                 .stream()
                 .flatMap(gen -> gen.generateFiles(request).stream());
 
-        int featureMask = generators
+        // Send the files back to protoc
+        return PluginProtos.CodeGeneratorResponse
+                .newBuilder()
+                .addAllFile(Stream.concat(oldWay, newWay).collect(Collectors.toList()))
+                .setSupportedFeatures(featureMask(generators))
+                .build();
+    }
+
+    /**
+     * Same as {@link #generate(List, PluginProtos.CodeGeneratorRequest)}, the generators are told how the request
+     * was read
+     */
+    private static PluginProtos.CodeGeneratorResponse generate(
+            @NotNull List<Generator> generators,
+            @NotNull RequestReader.ReadRequest readRequest
+    ) {
+        PluginProtos.CodeGeneratorRequest request = readRequest.request();
+        List<PluginProtos.CodeGeneratorResponse.File> files = new ArrayList<>();
+        generateDeprecated(generators, request, files::add);
+        for (Generator generator : generators) {
+            generator.generateFiles(request, readRequest.statistics(), files::add);
+        }
+        return PluginProtos.CodeGeneratorResponse
+                .newBuilder()
+                .addAllFile(files)
+                .setSupportedFeatures(featureMask(generators))
+                .build();
+    }
+
+    /**
+     * Same as {@link #generate(List, RequestReader.ReadRequest)}, but every file is written out as soon as
+     * a generator completes it instead of being kept for one big response.
+     */
+    private static void generate(
+            @NotNull List<Generator> generators,
+            @NotNull RequestReader.ReadRequest readRequest,
+            @NotNull StreamingResponseWriter writer
+    ) throws IOException {
+        PluginProtos.CodeGeneratorRequest request = readRequest.request();
+        Consumer<PluginProtos.CodeGeneratorResponse.File> sink = file -> {
+            try {
+                writer.writeFile(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        generateDeprecated(generators, request, sink);
+        for (Generator generator : generators) {
+            generator.generateFiles(request, readRequest.statistics(), sink);
+        }
+        writer.finish(featureMask(generators));
+    }
+
+    /**
+     * Runs the generators still overriding the deprecated {@link Generator#generate(PluginProtos.CodeGeneratorRequest)}
+     */
+    @SuppressWarnings("deprecation")
+    private static void generateDeprecated(
+            @NotNull List<Generator> generators,
+            @NotNull PluginProtos.CodeGeneratorRequest request,
+            @NotNull Consumer<PluginProtos.CodeGeneratorResponse.File> sink
+    ) {
+        for (Generator generator : generators) {
+            generator.generate(request).forEach(sink);
+        }
+    }
+
+    private static ExtensionRegistry extensionRegistry(@NotNull List<GeneratedExtension> extensions) {
+        // As per https://developers.google.com/protocol-buffers/docs/reference/java-generated#extension,
+        // extensions must be registered in order to be processed.
+        ExtensionRegistry extensionRegistry = ExtensionRegistry.newInstance();
+        for (GeneratedExtension extension : extensions) {
+            extensionRegistry.add(extension);
+        }
+        return extensionRegistry;
+    }
+
+    /**
+     * Falls back to the current time, i.e. reports the time since the request was read, if the start is unknown
+     */
+    private static long jvmStartNanos() {
+        long now = System.nanoTime();
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> now - Duration.between(start, Instant.now()).toNanos())
+                .orElse(now);
+    }
+
+    private static int featureMask(@NotNull List<Generator> generators) {
+        return generators
                 .stream()
                 .map(gen -> gen.supportedFeatures().stream())
                 // OR each generator's feature set together into a mask
@@ -211,13 +387,6 @@ public final class ProtocPlugin {
                 // AND together all the masks
                 .reduce((l, r) -> l & r)
                 .orElse(PluginProtos.CodeGeneratorResponse.Feature.FEATURE_NONE_VALUE);
-
-        // Send the files back to protoc
-        return PluginProtos.CodeGeneratorResponse
-                .newBuilder()
-                .addAllFile(Stream.concat(oldWay, newWay).collect(Collectors.toList()))
-                .setSupportedFeatures(featureMask)
-                .build();
     }
 
     private static void abort(Throwable ex) {
@@ -10,12 +10,12 @@ package org.sudu.protogen.plugin;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.GeneratedMessage;
 import com.google.protobuf.compiler.PluginProtos;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 
@@ -88,10 +88,20 @@ public final class ProtocPluginTesting {
             extensionRegistry.add(extension);
         }
 
-        byte[] generatorRequestBytes = FileUtils.readFileToByteArray(new File(dumpPath));
-        PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.parseFrom(
-                generatorRequestBytes, extensionRegistry);
+        PluginProtos.CodeGeneratorRequest request = RequestReader.read(Path.of(dumpPath), extensionRegistry).request();
 
         return ProtocPlugin.generate(generators, request);
     }
+
+    /**
+     * Parses a request the way the plugin parses the one protoc writes to its stdin
+     *
+     * @param in read up to its end
+     */
+    public static PluginProtos.CodeGeneratorRequest readRequest(
+            @NotNull InputStream in,
+            @NotNull ExtensionRegistry extensionRegistry
+    ) throws IOException {
+        return RequestReader.read(in, extensionRegistry).request();
+    }
 }
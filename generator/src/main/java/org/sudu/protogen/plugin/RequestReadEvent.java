@@ -0,0 +1,18 @@
+package org.sudu.protogen.plugin;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.sudu.protogen.RequestRead")
+@Label("Request Read")
+@Category("Protogen")
+@Description("Reading and parsing of a CodeGeneratorRequest")
+class RequestReadEvent extends jdk.jfr.Event {
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+}
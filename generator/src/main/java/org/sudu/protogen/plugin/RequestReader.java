@@ -0,0 +1,103 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parses a {@link CodeGeneratorRequest} straight from its source, without reading it into an intermediate array.
+ */
+final class RequestReader {
+
+    /**
+     * Requests with source info easily weigh hundreds of megabytes, read them by large chunks
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Every nested message declaration is one more level, the default limit of 100 is too tight for generated protos
+     */
+    private static final int RECURSION_LIMIT = 512;
+
+    private RequestReader() {
+    }
+
+    /**
+     * @param in the stream protoc writes the request to, read up to its end
+     */
+    @NotNull
+    static ReadRequest read(@NotNull InputStream in, @NotNull ExtensionRegistry extensionRegistry) throws IOException {
+        return parse(CodedInputStream.newInstance(in, BUFFER_SIZE), extensionRegistry);
+    }
+
+    /**
+     * Maps the file into memory, e.g. a descriptor dump
+     */
+    @NotNull
+    static ReadRequest read(@NotNull Path file, @NotNull ExtensionRegistry extensionRegistry) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parse(CodedInputStream.newInstance(buffer), extensionRegistry);
+        }
+    }
+
+    /**
+     * Maps a {@link FileDescriptorSet} into memory, e.g. written by {@code protoc --descriptor_set_out}, and turns
+     * it into a request to generate every file of the set
+     */
+    @NotNull
+    static ReadRequest readDescriptorSet(@NotNull Path file, @NotNull ExtensionRegistry extensionRegistry) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CodedInputStream input = CodedInputStream.newInstance(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            long start = System.nanoTime();
+            input.setRecursionLimit(RECURSION_LIMIT);
+            input.setSizeLimit(Integer.MAX_VALUE);
+            FileDescriptorSet descriptorSet = FileDescriptorSet.parseFrom(input, extensionRegistry);
+            CodeGeneratorRequest.Builder request = CodeGeneratorRequest.newBuilder().addAllProtoFile(descriptorSet.getFileList());
+            for (FileDescriptorProto proto : descriptorSet.getFileList()) {
+                request.addFileToGenerate(proto.getName());
+            }
+            return new ReadRequest(request.build(), input.getTotalBytesRead(), System.nanoTime() - start);
+        }
+    }
+
+    private static ReadRequest parse(CodedInputStream input, ExtensionRegistry extensionRegistry) throws IOException {
+        RequestReadEvent event = new RequestReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        input.setRecursionLimit(RECURSION_LIMIT);
+        input.setSizeLimit(Integer.MAX_VALUE);
+        CodeGeneratorRequest request = CodeGeneratorRequest.parseFrom(input, extensionRegistry);
+        ReadRequest readRequest = new ReadRequest(request, input.getTotalBytesRead(), System.nanoTime() - start);
+        event.bytes = readRequest.bytes();
+        event.commit();
+        return readRequest;
+    }
+
+    /**
+     * @param bytes      the size of the serialized request
+     * @param parseNanos time spent reading and parsing the request
+     */
+    record ReadRequest(@NotNull CodeGeneratorRequest request, long bytes, long parseNanos) {
+
+        RequestStatistics statistics() {
+            return new RequestStatistics(bytes, parseNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "Read a request of " + bytes + " bytes in " + parseNanos / 1_000_000 + " ms";
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.sudu.protogen.plugin;
+
+/**
+ * How the request handed to the generators was read
+ *
+ * @param bytes      the size of the serialized request
+ * @param parseNanos time spent reading and parsing the request
+ */
+public record RequestStatistics(long bytes, long parseNanos) {
+}
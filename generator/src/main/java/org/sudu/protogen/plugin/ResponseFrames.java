@@ -0,0 +1,93 @@
+package org.sudu.protogen.plugin;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * How {@link PluginDaemon} sends a response to {@link PluginClient}: the bytes come in frames prefixed by their
+ * length, and an empty frame tells the response is complete. A connection closed or reset before it, when the daemon
+ * dies or stops with connections still waiting, is told apart from a short response.
+ */
+final class ResponseFrames {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ResponseFrames() {
+    }
+
+    static final class Writer extends FilterOutputStream {
+
+        private final DataOutputStream frames;
+
+        Writer(@NotNull OutputStream out) {
+            this(new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE)));
+        }
+
+        private Writer(DataOutputStream frames) {
+            super(frames);
+            this.frames = frames;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            frames.writeInt(1);
+            frames.write(b);
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            if (len > 0) {
+                frames.writeInt(len);
+                frames.write(b, off, len);
+            }
+        }
+
+        /**
+         * Writes the empty frame, nothing may be written after it
+         */
+        void finish() throws IOException {
+            frames.writeInt(0);
+            frames.flush();
+        }
+    }
+
+    /**
+     * Copies the frames to the response as they come, the caller should only use the response once this returns
+     *
+     * @throws IOException if the stream ends before the response is complete
+     */
+    static void read(@NotNull InputStream in, @NotNull OutputStream response) throws IOException {
+        DataInputStream frames = new DataInputStream(in);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int length;
+            try {
+                length = frames.readInt();
+            } catch (EOFException e) {
+                throw new IOException("The connection was closed before the end of the response", e);
+            }
+            if (length == 0) {
+                return;
+            }
+            if (length < 0) {
+                throw new IOException("Malformed response frame of " + length + " bytes");
+            }
+            while (length > 0) {
+                int read = frames.read(buffer, 0, Math.min(length, buffer.length));
+                if (read < 0) {
+                    throw new IOException("Incomplete response frame");
+                }
+                response.write(buffer, 0, read);
+                length -= read;
+            }
+        }
+    }
+}
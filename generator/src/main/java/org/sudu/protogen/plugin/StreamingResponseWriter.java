@@ -0,0 +1,80 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@link CodeGeneratorResponse} field by field: every file is serialized as soon as it is generated and
+ * can be collected right after. The fields of a message may come in any order on the wire, so protoc reads the same
+ * response as the one {@link CodeGeneratorResponse#writeTo} would have written.
+ */
+final class StreamingResponseWriter {
+
+    private final OutputStream out;
+
+    private final CodedOutputStream output;
+
+    private volatile long firstByteNanos = -1;
+
+    StreamingResponseWriter(@NotNull OutputStream out) {
+        this.out = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                recordFirstByte();
+                super.out.write(b, off, len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                recordFirstByte();
+                super.out.write(b);
+            }
+        };
+        this.output = CodedOutputStream.newInstance(this.out);
+    }
+
+    /**
+     * The time protoc waited for the response to start, the generation of the first files included
+     *
+     * @param originNanos when the wait started, in {@link System#nanoTime()} terms
+     * @return {@code -1} if nothing has been written yet
+     */
+    long timeToFirstByteMillis(long originNanos) {
+        long firstByte = firstByteNanos;
+        return firstByte < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstByte - originNanos);
+    }
+
+    private void recordFirstByte() {
+        if (firstByteNanos < 0) {
+            firstByteNanos = System.nanoTime();
+        }
+    }
+
+    void writeFile(@NotNull CodeGeneratorResponse.File file) throws IOException {
+        output.writeMessage(CodeGeneratorResponse.FILE_FIELD_NUMBER, file);
+    }
+
+    void finish(int supportedFeatures) throws IOException {
+        output.writeUInt64(CodeGeneratorResponse.SUPPORTED_FEATURES_FIELD_NUMBER, supportedFeatures);
+        flush();
+    }
+
+    /**
+     * protoc ignores the files of a response with an error, even those already written
+     */
+    void finishWithError(@NotNull String error) throws IOException {
+        output.writeString(CodeGeneratorResponse.ERROR_FIELD_NUMBER, error);
+        flush();
+    }
+
+    private void flush() throws IOException {
+        output.flush();
+        out.flush();
+    }
+}
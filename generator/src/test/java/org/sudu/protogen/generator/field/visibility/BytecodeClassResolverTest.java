@@ -0,0 +1,140 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BytecodeClassResolverTest {
+
+    private static final String ORDER = BytecodeClassResolverTest.class.getName() + "$Order";
+
+    private static final String BASE = BytecodeClassResolverTest.class.getName() + "$Base";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void classesAreReadFromDirectories() throws Exception {
+        Path classes = directory.resolve("classes");
+        write(classes, Base.class, Order.class);
+
+        try (BytecodeClassResolver resolver = new BytecodeClassResolver(List.of(classes))) {
+            ClassDeclaration order = resolver.resolve(ORDER);
+            assertEquals(ORDER, order.qualifiedName());
+            assertEquals(BASE, order.superclassName());
+            assertEquals(List.of(
+                    new ClassDeclaration.DeclaredField("total", Visibility.PUBLIC),
+                    new ClassDeclaration.DeclaredField("lines", Visibility.PACKAGE_PRIVATE)
+            ), order.fields());
+            assertEquals(classes.resolve(internalName(Order.class) + ".class"), order.origin());
+            assertNull(order.originEntry());
+
+            ClassDeclaration base = resolver.resolve(order.superclassName());
+            // java.lang.Object isn't a part of the hierarchy
+            assertNull(base.superclassName());
+            assertEquals(List.of(
+                    new ClassDeclaration.DeclaredField("id", Visibility.PRIVATE),
+                    new ClassDeclaration.DeclaredField("name", Visibility.PROTECTED)
+            ), base.fields());
+        }
+    }
+
+    @Test
+    void classesAreReadFromJars() throws Exception {
+        Path jar = directory.resolve("classes.jar");
+        jar(jar, Base.class, Order.class);
+
+        try (BytecodeClassResolver resolver = new BytecodeClassResolver(List.of(jar))) {
+            ClassDeclaration order = resolver.resolve(ORDER);
+            assertEquals(BASE, order.superclassName());
+            assertEquals(jar, order.origin());
+            assertEquals(internalName(Order.class) + ".class", order.originEntry());
+        }
+    }
+
+    @Test
+    void theFirstClasspathEntryWins() throws Exception {
+        Path classes = directory.resolve("classes");
+        write(classes, Order.class);
+        Path jar = directory.resolve("classes.jar");
+        jar(jar, Order.class);
+
+        try (BytecodeClassResolver resolver = new BytecodeClassResolver(List.of(jar, classes))) {
+            assertEquals(jar, resolver.resolve(ORDER).origin());
+        }
+    }
+
+    @Test
+    void nestedClassesAreOnlyFoundByTheirBinaryName() throws Exception {
+        Path classes = directory.resolve("classes");
+        write(classes, BytecodeClassResolverTest.class, Order.class);
+
+        try (BytecodeClassResolver resolver = new BytecodeClassResolver(List.of(classes, directory.resolve("missing")))) {
+            assertEquals(BytecodeClassResolverTest.class.getName(),
+                    resolver.resolve(BytecodeClassResolverTest.class.getSimpleName()).qualifiedName());
+            assertNull(resolver.resolve("Order"));
+            assertNull(resolver.resolve("BytecodeClassResolverTest$Order"));
+            assertNull(resolver.resolve(ORDER.replace('$', '.')));
+        }
+    }
+
+    @Test
+    void malformedClassFilesFailTheResolution() throws Exception {
+        Path classes = directory.resolve("classes");
+        Path classFile = classes.resolve(internalName(Order.class) + ".class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+
+        try (BytecodeClassResolver resolver = new BytecodeClassResolver(List.of(classes))) {
+            assertThrows(IllegalArgumentException.class, () -> resolver.resolve(ORDER));
+        }
+    }
+
+    private static void write(Path classes, Class<?>... classesToWrite) throws IOException {
+        for (Class<?> clazz : classesToWrite) {
+            Path file = classes.resolve(internalName(clazz) + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, ClassFileReaderTest.bytesOf(clazz));
+        }
+    }
+
+    private static void jar(Path jar, Class<?>... classes) throws IOException {
+        try (OutputStream file = Files.newOutputStream(jar); ZipOutputStream out = new ZipOutputStream(file)) {
+            for (Class<?> clazz : classes) {
+                out.putNextEntry(new ZipEntry(internalName(clazz) + ".class"));
+                out.write(ClassFileReaderTest.bytesOf(clazz));
+            }
+        }
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    @SuppressWarnings("unused")
+    static class Base {
+
+        private long id;
+
+        protected String name;
+    }
+
+    @SuppressWarnings("unused")
+    static class Order extends Base {
+
+        public int total;
+
+        List<String> lines;
+    }
+}
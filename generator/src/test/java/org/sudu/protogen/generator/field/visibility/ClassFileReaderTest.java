@@ -0,0 +1,83 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClassFileReaderTest {
+
+    @Test
+    void fieldsAreReadWithTheirVisibility() throws IOException {
+        ClassFileReader.ClassFile classFile = ClassFileReader.read(bytesOf(Base.class));
+
+        assertEquals(Base.class.getName(), classFile.name());
+        assertEquals("java.lang.Object", classFile.superName());
+        assertEquals(List.of(
+                new ClassFileReader.FieldInfo("id", Visibility.PRIVATE),
+                new ClassFileReader.FieldInfo("name", Visibility.PROTECTED),
+                new ClassFileReader.FieldInfo("count", Visibility.PACKAGE_PRIVATE),
+                new ClassFileReader.FieldInfo("flag", Visibility.PUBLIC),
+                new ClassFileReader.FieldInfo("LIMIT", Visibility.PUBLIC)
+        ), classFile.fields());
+    }
+
+    @Test
+    void nestedClassesHaveTheirBinaryNames() throws IOException {
+        ClassFileReader.ClassFile classFile = ClassFileReader.read(bytesOf(Base.Inner.class));
+
+        assertEquals(ClassFileReaderTest.class.getName() + "$Base$Inner", classFile.name());
+        assertEquals(ClassFileReaderTest.class.getName() + "$Base", classFile.superName());
+        // The synthetic reference to the enclosing instance isn't a declared field
+        assertEquals(List.of(new ClassFileReader.FieldInfo("value", Visibility.PRIVATE)), classFile.fields());
+    }
+
+    @Test
+    void interfacesAndObjectHaveNoFields() throws IOException {
+        assertEquals(List.of(), ClassFileReader.read(bytesOf(Runnable.class)).fields());
+        assertNull(ClassFileReader.read(bytesOf(Object.class)).superName());
+    }
+
+    @Test
+    void malformedClassFilesAreRejected() throws IOException {
+        byte[] bytes = bytesOf(Base.class);
+
+        assertThrows(IllegalArgumentException.class, () -> ClassFileReader.read(Arrays.copyOf(bytes, bytes.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> ClassFileReader.read(Arrays.copyOf(bytes, 6)));
+        byte[] notAClass = bytes.clone();
+        notAClass[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> ClassFileReader.read(notAClass));
+    }
+
+    static byte[] bytesOf(Class<?> clazz) throws IOException {
+        String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream in = clazz.getResourceAsStream(resource)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Base {
+
+        private int id;
+
+        protected String name;
+
+        long count;
+
+        public boolean flag;
+
+        public static final int LIMIT = 10;
+
+        class Inner extends Base {
+
+            private int value;
+        }
+    }
+}
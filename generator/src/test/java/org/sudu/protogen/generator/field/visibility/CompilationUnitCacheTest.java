@@ -0,0 +1,74 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompilationUnitCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unchangedFilesAreParsedOnce() throws IOException {
+        Path order = source("Order.java", "class Order {}");
+        CompilationUnitCache cache = new CompilationUnitCache();
+
+        CompilationUnit unit = cache.parse(order);
+        assertSame(unit, cache.parse(order));
+
+        CompilationUnitCache.Statistics statistics = cache.statistics();
+        assertEquals(1, statistics.hits());
+        assertEquals(1, statistics.misses());
+        assertEquals(1, statistics.size());
+    }
+
+    @Test
+    void changedFilesAreParsedAgain() throws IOException {
+        Path order = source("Order.java", "class Order {}");
+        CompilationUnitCache cache = new CompilationUnitCache();
+        cache.parse(order);
+
+        Files.writeString(order, "class Order { int id; }");
+        // Moves the modification time away from the parsed one, whatever the resolution of the file system
+        Files.setLastModifiedTime(order, FileTime.fromMillis(Files.getLastModifiedTime(order).toMillis() + 60_000));
+
+        assertEquals(1, cache.parse(order).getType(0).getFields().size());
+        assertEquals(0, cache.statistics().hits());
+        assertEquals(2, cache.statistics().misses());
+    }
+
+    @Test
+    void theLeastRecentlyUsedFileIsEvicted() throws IOException {
+        Path order = source("Order.java", "class Order {}");
+        Path base = source("Base.java", "class Base {}");
+        Path line = source("Line.java", "class Line {}");
+        CompilationUnitCache cache = new CompilationUnitCache(2);
+
+        CompilationUnit orderUnit = cache.parse(order);
+        CompilationUnit baseUnit = cache.parse(base);
+        cache.parse(order);
+        cache.parse(line);
+
+        assertSame(orderUnit, cache.parse(order));
+        assertNotSame(baseUnit, cache.parse(base));
+        CompilationUnitCache.Statistics statistics = cache.statistics();
+        assertEquals(2, statistics.evictions());
+        assertEquals(2, statistics.size());
+        assertEquals(2, statistics.hits());
+        assertEquals(4, statistics.misses());
+    }
+
+    private Path source(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
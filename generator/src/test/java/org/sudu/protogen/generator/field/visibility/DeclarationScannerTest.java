@@ -0,0 +1,172 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The scanner has to read the same declarations as JavaParser does
+ */
+class DeclarationScannerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void genericSuperclasses() throws Exception {
+        assertSameAsParser("Order", """
+                package com.example;
+                import java.util.Map;
+                public class Order<K extends Comparable<K>, V> extends Base<Map<K, List<V>>> implements Comparable<Order<K, V>> {
+                    private Map<K, V> entries;
+                }
+                """, List.of(field("entries", Visibility.PRIVATE)));
+        assertEquals("Base", DeclarationScanner.scan("class Order<T> extends @Nullable Base<T[]> {}")
+                .types().get("Order").extendedType());
+        assertEquals("com.example.Base", DeclarationScanner.scan("class Order extends com.example.Base<String> {}")
+                .types().get("Order").extendedType());
+    }
+
+    @Test
+    void fieldInitializers() throws Exception {
+        assertSameAsParser("Order", """
+                package com.example;
+                class Order {
+                    private int[] ids = {1, 2}, more[] = {{3}};
+                    protected Runnable task = () -> { System.out.println("}"); };
+                    Comparator<String> comparator = new Comparator<>() {
+                        private int calls;
+                        public int compare(String a, String b) { return 0; }
+                    };
+                    public Map<String, Integer> counts = new HashMap<String, Integer>(), copy = Map.of("a", 1);
+                    static { int ignored = 0; }
+                    { int alsoIgnored = 0; }
+                    private final long last;
+                }
+                """, List.of(
+                field("ids", Visibility.PRIVATE),
+                field("more", Visibility.PRIVATE),
+                field("task", Visibility.PROTECTED),
+                field("comparator", Visibility.PACKAGE_PRIVATE),
+                field("counts", Visibility.PUBLIC),
+                field("copy", Visibility.PUBLIC),
+                field("last", Visibility.PRIVATE)
+        ));
+    }
+
+    @Test
+    void literalsWithBraces() throws Exception {
+        assertSameAsParser("Order", """
+                package com.example;
+                class Order {
+                    private char open = '{', close = '}', quote = '\\'';
+                    private String text = \"""
+                            } "not" the end {
+                            \""";
+                    /* } */ public String escaped = "\\"}"; // {
+                    protected int after;
+                }
+                """, List.of(
+                field("open", Visibility.PRIVATE),
+                field("close", Visibility.PRIVATE),
+                field("quote", Visibility.PRIVATE),
+                field("text", Visibility.PRIVATE),
+                field("escaped", Visibility.PUBLIC),
+                field("after", Visibility.PROTECTED)
+        ));
+    }
+
+    @Test
+    void recordsEnumsAndSealedTypes() throws Exception {
+        String source = """
+                package com.example;
+                public sealed class Order permits Order.Special {
+                    record Line(String product, int quantity) { static int count; }
+                    enum Status { NEW, PAID { void pay() {} }; private int code; }
+                    non-sealed static class Special extends Order { private int extra; }
+                    @interface Marker { int value() default 1; }
+                    private record Pair<A, B>(A first, B second) {}
+                    private Status status;
+                    String record;
+                }
+                record Summary(int total) {}
+                enum Kind { A, B }
+                """;
+        assertSameAsParser("Order", source, List.of(
+                field("status", Visibility.PRIVATE),
+                field("record", Visibility.PACKAGE_PRIVATE)
+        ));
+        // Only classes and interfaces are found by name, as with the parser
+        assertEquals(Set.of("Order"), DeclarationScanner.scan(source).types().keySet());
+    }
+
+    @Test
+    void unicodeEscapesFallBackToTheParser() throws Exception {
+        String source = """
+                package com.example;
+                class Order {
+                    private int \\u0069d;
+                    public String name;
+                }
+                """;
+        assertThrows(DeclarationScanner.ScanException.class, () -> DeclarationScanner.scan(source));
+
+        write("Order", source);
+        SourceClassResolver resolver = resolver(SourceEngine.SCANNER);
+        assertEquals(List.of(field("id", Visibility.PRIVATE), field("name", Visibility.PUBLIC)),
+                resolver.resolve("com.example.Order").fields());
+        assertEquals(1, resolver.getScannerFallbacks());
+    }
+
+    @Test
+    void importsAreRecorded() throws Exception {
+        DeclarationScanner.ScannedFile file = DeclarationScanner.scan("""
+                package com.example;
+                import java.util.List;
+                import java.util.concurrent.*;
+                import static java.util.Map.entry;
+                import static java.util.Collections.*;
+                class Order {}
+                """);
+        assertEquals("com.example", file.packageName());
+        assertEquals(Map.of("List", "java.util.List", "entry", "java.util.Map.entry"), file.imports());
+        assertEquals(List.of("java.util.concurrent"), file.onDemandImports());
+    }
+
+    /**
+     * Checks the fields the scanner reads and that the resolver gives the same declaration with both engines
+     */
+    private void assertSameAsParser(String className, String source, List<ClassDeclaration.DeclaredField> fields)
+            throws Exception {
+        assertEquals(fields, DeclarationScanner.scan(source).types().get(className).fields());
+
+        write(className, source);
+        SourceClassResolver scanning = resolver(SourceEngine.SCANNER);
+        ClassDeclaration scanned = scanning.resolve("com.example." + className);
+        assertEquals(0, scanning.getScannerFallbacks());
+        assertEquals(resolver(SourceEngine.JAVAPARSER).resolve("com.example." + className), scanned);
+    }
+
+    private SourceClassResolver resolver(SourceEngine engine) {
+        return new SourceClassResolver(Set.of(root.toString()), engine, new CompilationUnitCache());
+    }
+
+    private void write(String className, String source) throws IOException {
+        Path file = root.resolve("com/example/" + className + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+    }
+
+    private static ClassDeclaration.DeclaredField field(String name, Visibility visibility) {
+        return new ClassDeclaration.DeclaredField(name, visibility);
+    }
+}
@@ -0,0 +1,45 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SourceClassResolverTest {
+
+    @TempDir
+    Path root;
+
+    @ParameterizedTest
+    @EnumSource(SourceEngine.class)
+    void superclassesAreResolvedThroughTheImports(SourceEngine engine) throws Exception {
+        source("com/a/Base.java", "package com.a; public class Base {}");
+        source("com/b/Base.java", "package com.b; public class Base {}");
+        source("com/c/Imported.java", "package com.c; import com.b.Base; class Imported extends Base {}");
+        source("com/c/OnDemand.java", "package com.c; import com.b.*; class OnDemand extends Base {}");
+        source("com/c/Platform.java", "package com.c; import java.util.*; class Platform extends AbstractMap<String, String> {}");
+        source("com/c/Lang.java", "package com.c; class Lang extends Thread {}");
+        source("com/c/Unknown.java", "package com.c; class Unknown extends Base {}");
+
+        SourceClassResolver resolver = new SourceClassResolver(Set.of(root.toString()), engine, new CompilationUnitCache());
+
+        assertEquals("com.b.Base", resolver.resolve("com.c.Imported").superclassName());
+        assertEquals("com.b.Base", resolver.resolve("com.c.OnDemand").superclassName());
+        assertEquals("java.util.AbstractMap", resolver.resolve("com.c.Platform").superclassName());
+        assertEquals("java.lang.Thread", resolver.resolve("com.c.Lang").superclassName());
+        // Neither com.a.Base nor com.b.Base is visible from the class
+        assertEquals("com.c.Base", resolver.resolve("com.c.Unknown").superclassName());
+    }
+
+    private void source(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
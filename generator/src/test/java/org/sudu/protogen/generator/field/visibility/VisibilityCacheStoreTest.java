@@ -0,0 +1,148 @@
+package org.sudu.protogen.generator.field.visibility;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VisibilityCacheStoreTest {
+
+    private static final String FINGERPRINT = "settings";
+
+    private static final Map<String, FieldVisibility> FIELDS = Map.of(
+            "id", new FieldVisibility("id", "com.example.Base", Visibility.PRIVATE, true),
+            "name", new FieldVisibility("name", "com.example.Order", Visibility.PUBLIC, false)
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedClassesAreReadBack() throws IOException {
+        Path order = source("Order.java", "class Order extends Base {}");
+        Path base = source("Base.java", "class Base {}");
+        store(List.of(new ClassDeclaration.Source(order, null), new ClassDeclaration.Source(base, null)), List.of());
+
+        assertEquals(FIELDS, load().lookup("com.example.Order", new ClassDeclaration.Source(order, null), name -> true));
+        assertNull(load().lookup("com.example.Base", new ClassDeclaration.Source(base, null), name -> true));
+    }
+
+    @Test
+    void anotherClassOfTheSameNameInvalidatesTheClass() throws IOException {
+        Path order = source("Order.java", "class Order {}");
+        Path shadowing = Files.writeString(Files.createDirectories(directory.resolve("other")).resolve("Order.java"),
+                "class Order {}");
+        store(List.of(new ClassDeclaration.Source(order, null)), List.of());
+
+        VisibilityCacheStore store = load();
+        assertNull(store.lookup("com.example.Order", new ClassDeclaration.Source(shadowing, null), name -> true));
+        assertEquals(1, store.statistics().staleEntries());
+    }
+
+    @Test
+    void modifiedSourcesInvalidateTheClass() throws IOException {
+        Path order = source("Order.java", "class Order extends Base {}");
+        store(List.of(new ClassDeclaration.Source(order, null)), List.of());
+
+        // Same size, other content
+        Files.writeString(order, "class Order extends Bass {}");
+        touch(order);
+
+        VisibilityCacheStore store = load();
+        assertNull(store.lookup("com.example.Order", new ClassDeclaration.Source(order, null), name -> true));
+        assertEquals(1, store.statistics().staleEntries());
+    }
+
+    @Test
+    void touchedButUnchangedSourcesKeepTheClass() throws IOException {
+        Path order = source("Order.java", "class Order extends Base {}");
+        store(List.of(new ClassDeclaration.Source(order, null)), List.of());
+
+        touch(order);
+
+        assertEquals(FIELDS, load().lookup("com.example.Order", new ClassDeclaration.Source(order, null), name -> true));
+    }
+
+    @Test
+    void otherSettingsDropTheStore() throws IOException {
+        Path order = source("Order.java", "class Order {}");
+        store(List.of(new ClassDeclaration.Source(order, null)), List.of());
+
+        VisibilityCacheStore store = VisibilityCacheStore.load(cacheFile(), "other settings");
+        assertEquals(0, store.statistics().classes());
+    }
+
+    @Test
+    void resolvedSuperclassesInvalidateTheClass() throws IOException {
+        Path order = source("Order.java", "class Order extends java.util.AbstractMap {}");
+        store(List.of(new ClassDeclaration.Source(order, null)), List.of("java.util.AbstractMap"));
+
+        ClassDeclaration.Source source = new ClassDeclaration.Source(order, null);
+        assertEquals(FIELDS, load().lookup("com.example.Order", source, name -> true));
+        // Shadowed by a class added to the sources
+        assertNull(load().lookup("com.example.Order", source, name -> !name.equals("java.util.AbstractMap")));
+    }
+
+    @Test
+    void jarClassesAreStampedByTheirEntry() throws IOException {
+        Path jar = directory.resolve("classes.jar");
+        jar(jar, "order", "other");
+        ClassDeclaration.Source source = new ClassDeclaration.Source(jar, "com/example/Order.class");
+        store(List.of(source), List.of());
+
+        // The jar is rebuilt, only another class changes
+        jar(jar, "order", "another");
+        touch(jar);
+        assertEquals(FIELDS, load().lookup("com.example.Order", source, name -> true));
+
+        jar(jar, "changed order", "another");
+        touch(jar);
+        assertNull(load().lookup("com.example.Order", source, name -> true));
+    }
+
+    private void store(List<ClassDeclaration.Source> hierarchy, List<String> unresolvedSuperclasses) throws IOException {
+        VisibilityCacheStore store = load();
+        store.store("com.example.Order", hierarchy, unresolvedSuperclasses, FIELDS);
+        store.save();
+    }
+
+    private VisibilityCacheStore load() {
+        return VisibilityCacheStore.load(cacheFile(), FINGERPRINT);
+    }
+
+    private Path cacheFile() {
+        return directory.resolve("visibility.cache");
+    }
+
+    private Path source(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static void jar(Path jar, String order, String other) throws IOException {
+        try (OutputStream file = Files.newOutputStream(jar); ZipOutputStream out = new ZipOutputStream(file)) {
+            out.putNextEntry(new ZipEntry("com/example/Order.class"));
+            out.write(order.getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("com/example/Other.class"));
+            out.write(other.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Moves the modification time away from the stamped one, whatever the resolution of the file system
+     */
+    private static void touch(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+    }
+}
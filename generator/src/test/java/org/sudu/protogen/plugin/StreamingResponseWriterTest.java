@@ -0,0 +1,78 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * protoc has to read the streamed response as the one {@link CodeGeneratorResponse#writeTo} writes
+ */
+class StreamingResponseWriterTest {
+
+    private static final int FEATURES = CodeGeneratorResponse.Feature.FEATURE_PROTO3_OPTIONAL_VALUE;
+
+    private static final CodeGeneratorResponse.File ORDER = file("com/example/Order.java", "class Order {}");
+
+    private static final CodeGeneratorResponse.File LINE = file("com/example/Line.java", "class Line { String é; }");
+
+    @Test
+    void filesAreReadBackAsTheResponse() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseWriter writer = new StreamingResponseWriter(out);
+        writer.writeFile(ORDER);
+        writer.writeFile(LINE);
+        writer.finish(FEATURES);
+
+        assertSameResponse(CodeGeneratorResponse.newBuilder()
+                .addFile(ORDER)
+                .addFile(LINE)
+                .setSupportedFeatures(FEATURES)
+                .build(), out.toByteArray());
+    }
+
+    @Test
+    void anErrorAfterSomeFilesIsReadBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseWriter writer = new StreamingResponseWriter(out);
+        writer.writeFile(ORDER);
+        writer.finishWithError("Unknown type of Line.product");
+
+        assertSameResponse(CodeGeneratorResponse.newBuilder()
+                .addFile(ORDER)
+                .setError("Unknown type of Line.product")
+                .build(), out.toByteArray());
+    }
+
+    @Test
+    void framedResponsesAreReadBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseFrames.Writer frames = new ResponseFrames.Writer(out);
+        StreamingResponseWriter writer = new StreamingResponseWriter(frames);
+        writer.writeFile(ORDER);
+        writer.finishWithError("Unknown type of Line.product");
+        frames.finish();
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        ResponseFrames.read(new ByteArrayInputStream(out.toByteArray()), response);
+        assertSameResponse(CodeGeneratorResponse.newBuilder()
+                .addFile(ORDER)
+                .setError("Unknown type of Line.product")
+                .build(), response.toByteArray());
+    }
+
+    private static void assertSameResponse(CodeGeneratorResponse expected, byte[] streamed) throws IOException {
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        expected.writeTo(written);
+        assertEquals(CodeGeneratorResponse.parseFrom(written.toByteArray()), CodeGeneratorResponse.parseFrom(streamed));
+        assertEquals(expected, CodeGeneratorResponse.parseFrom(streamed));
+    }
+
+    private static CodeGeneratorResponse.File file(String name, String content) {
+        return CodeGeneratorResponse.File.newBuilder().setName(name).setContent(content).build();
+    }
+}
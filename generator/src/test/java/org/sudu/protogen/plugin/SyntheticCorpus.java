@@ -0,0 +1,431 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.DescriptorProtos.MethodDescriptorProto;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import org.apache.commons.lang3.Validate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds protogen-enabled proto files of any size, as protoc would hand them to the plugin. Meant for the scaling
+ * tests, the schema only has to be valid and to exercise the generator, not to make sense.
+ * <p>
+ * Every file declares an enum, {@code messagesPerFile} top-level messages and their nested chains, and services.
+ * Fields are scalars, enums or messages declared earlier in the file or in the previous file, which the file imports.
+ * The mix of repeated, map, oneof and optional fields is drawn from a seeded random, the same settings always give
+ * the same corpus. The original classes of the top-level messages can be written along, for the visibility analysis.
+ */
+public final class SyntheticCorpus {
+
+    private static final String[] SCALARS = {"string", "int32", "int64", "bool", "double"};
+
+    private static final String SHARED_BASE_CLASS = "SyntheticBase";
+
+    private static final String[] VISIBILITIES = {"private ", "protected ", "public ", ""};
+
+    private final List<FileDescriptorProto> files;
+
+    private final int messageCount;
+
+    private SyntheticCorpus(List<FileDescriptorProto> files, int messageCount) {
+        this.files = files;
+        this.messageCount = messageCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the synthetic files, each importing the options and the previous file
+     */
+    @NotNull
+    public List<FileDescriptorProto> files() {
+        return files;
+    }
+
+    /**
+     * @return the number of messages, nested ones included and map entries excluded
+     */
+    public int messageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @return the synthetic files and their dependencies, every file coming after the files it imports
+     */
+    @NotNull
+    public FileDescriptorSet toFileDescriptorSet() {
+        return FileDescriptorSet.newBuilder().addAllFile(allFiles()).build();
+    }
+
+    /**
+     * @param parameter the parameter of the plugin, e.g. {@code config=/path/to/config/}, empty for none
+     * @return the request asking to generate every synthetic file
+     */
+    @NotNull
+    public CodeGeneratorRequest toRequest(@NotNull String parameter) {
+        return CodeGeneratorRequest.newBuilder()
+                .addAllFileToGenerate(files.stream().map(FileDescriptorProto::getName).toList())
+                .setParameter(parameter)
+                .addAllProtoFile(allFiles())
+                .build();
+    }
+
+    /**
+     * Writes the request like the {@code DumpGenerator} does, see {@link ProtocPlugin#debug}
+     */
+    public void writeDump(@NotNull Path dump, @NotNull String parameter) throws IOException {
+        Files.write(dump, toRequest(parameter).toByteArray());
+    }
+
+    /**
+     * Writes the original class of every top-level message, as the visibility analysis looks for them: named after
+     * the message without its {@code Grpc} prefix, with a field of each name of the message. The fields of even
+     * numbers are inherited from a base class of the message, itself extending a base class shared by the file.
+     * The visibility of the fields rotates, so that some of the inherited ones are hidden.
+     *
+     * @param root the source root, the packages are the java packages of the files
+     */
+    public void writeSources(@NotNull Path root) throws IOException {
+        for (FileDescriptorProto file : files) {
+            String javaPackage = file.getOptions().getJavaPackage();
+            Path directory = Files.createDirectories(root.resolve(javaPackage.replace('.', '/')));
+            writeClass(directory, javaPackage, SHARED_BASE_CLASS, null, List.of("private Object id;"));
+            for (DescriptorProto message : file.getMessageTypeList()) {
+                String className = message.getName().substring("Grpc".length());
+                List<String> declared = new ArrayList<>();
+                List<String> inherited = new ArrayList<>();
+                for (FieldDescriptorProto field : message.getFieldList()) {
+                    String declaration = VISIBILITIES[field.getNumber() % VISIBILITIES.length] + "Object " + field.getName() + ";";
+                    (field.getNumber() % 2 == 0 ? inherited : declared).add(declaration);
+                }
+                writeClass(directory, javaPackage, className + "Base", SHARED_BASE_CLASS, inherited);
+                writeClass(directory, javaPackage, className, className + "Base", declared);
+            }
+        }
+    }
+
+    private static void writeClass(Path directory, String javaPackage, String className, @Nullable String superclass,
+                                   List<String> fields) throws IOException {
+        StringBuilder source = new StringBuilder("package ").append(javaPackage).append(";\n\npublic class ").append(className);
+        if (superclass != null) {
+            source.append(" extends ").append(superclass);
+        }
+        source.append(" {\n");
+        fields.forEach(field -> source.append("    ").append(field).append('\n'));
+        Files.writeString(directory.resolve(className + ".java"), source.append("}\n"));
+    }
+
+    private List<FileDescriptorProto> allFiles() {
+        List<FileDescriptorProto> all = new ArrayList<>();
+        all.add(DescriptorProtos.getDescriptor().toProto());
+        all.add(protogen.Options.getDescriptor().toProto());
+        all.addAll(files);
+        return all;
+    }
+
+    public static final class Builder {
+
+        private int files = 1;
+
+        private int messagesPerFile = 10;
+
+        private int fieldsPerMessage = 5;
+
+        private int nestingDepth = 0;
+
+        private double repeatedRatio = 0.2;
+
+        private double mapRatio = 0.05;
+
+        private double oneofRatio = 0.1;
+
+        private double optionalRatio = 0.2;
+
+        private int servicesPerFile = 1;
+
+        private int methodsPerService = 4;
+
+        private double streamingRatio = 0.25;
+
+        private long seed = 42;
+
+        private Builder() {
+        }
+
+        public Builder files(int files) {
+            Validate.isTrue(files > 0, "files should be positive");
+            this.files = files;
+            return this;
+        }
+
+        public Builder messagesPerFile(int messagesPerFile) {
+            Validate.isTrue(messagesPerFile > 0, "messagesPerFile should be positive");
+            this.messagesPerFile = messagesPerFile;
+            return this;
+        }
+
+        public Builder fieldsPerMessage(int fieldsPerMessage) {
+            Validate.isTrue(fieldsPerMessage > 0, "fieldsPerMessage should be positive");
+            this.fieldsPerMessage = fieldsPerMessage;
+            return this;
+        }
+
+        /**
+         * @param nestingDepth the length of the chain of messages nested in every top-level message
+         */
+        public Builder nestingDepth(int nestingDepth) {
+            Validate.isTrue(nestingDepth >= 0, "nestingDepth should not be negative");
+            this.nestingDepth = nestingDepth;
+            return this;
+        }
+
+        /**
+         * The ratios are the probabilities of a field to be of each kind, the remaining fields are singular
+         */
+        public Builder fieldMix(double repeated, double map, double oneof, double optional) {
+            Validate.isTrue(repeated >= 0 && map >= 0 && oneof >= 0 && optional >= 0 && repeated + map + oneof + optional <= 1,
+                    "the ratios should not be negative and sum up to at most 1");
+            this.repeatedRatio = repeated;
+            this.mapRatio = map;
+            this.oneofRatio = oneof;
+            this.optionalRatio = optional;
+            return this;
+        }
+
+        public Builder services(int servicesPerFile, int methodsPerService, double streamingRatio) {
+            Validate.isTrue(servicesPerFile >= 0, "servicesPerFile should not be negative");
+            Validate.isTrue(methodsPerService > 0, "methodsPerService should be positive");
+            Validate.isTrue(streamingRatio >= 0 && streamingRatio <= 1, "streamingRatio should be between 0 and 1");
+            this.servicesPerFile = servicesPerFile;
+            this.methodsPerService = methodsPerService;
+            this.streamingRatio = streamingRatio;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SyntheticCorpus build() {
+            Random random = new Random(seed);
+            List<FileDescriptorProto> result = new ArrayList<>(files);
+            int messageCount = 0;
+            for (int i = 0; i < files; ++i) {
+                FileBuilder file = new FileBuilder(i, i == 0 ? null : result.get(i - 1), random);
+                result.add(file.build());
+                messageCount += file.messageCount;
+            }
+            return new SyntheticCorpus(List.copyOf(result), messageCount);
+        }
+
+        private final class FileBuilder {
+
+            private final int index;
+
+            private final String protoPackage;
+
+            private final FileDescriptorProto previous;
+
+            private final Random random;
+
+            /**
+             * Fully qualified names of the messages fields may refer to
+             */
+            private final List<String> knownMessages = new ArrayList<>();
+
+            private final String enumType;
+
+            private int messageCount;
+
+            FileBuilder(int index, FileDescriptorProto previous, Random random) {
+                this.index = index;
+                this.protoPackage = "synthetic.f" + index;
+                this.previous = previous;
+                this.random = random;
+                this.enumType = "." + protoPackage + ".GrpcKind" + index;
+                if (previous != null) {
+                    for (DescriptorProto message : previous.getMessageTypeList()) {
+                        knownMessages.add("." + previous.getPackage() + "." + message.getName());
+                    }
+                }
+            }
+
+            FileDescriptorProto build() {
+                FileDescriptorProto.Builder file = FileDescriptorProto.newBuilder()
+                        .setName("synthetic/f" + index + ".proto")
+                        .setPackage(protoPackage)
+                        .setSyntax("proto3")
+                        .addDependency(protogen.Options.getDescriptor().getName())
+                        .setOptions(DescriptorProtos.FileOptions.newBuilder()
+                                .setJavaPackage("org.example.synthetic.f" + index)
+                                .setJavaMultipleFiles(true)
+                                .setExtension(protogen.Options.enable, true));
+                if (previous != null) {
+                    file.addDependency(previous.getName());
+                }
+                file.addEnumType(enumType());
+                List<String> topLevel = new ArrayList<>();
+                for (int j = 0; j < messagesPerFile; ++j) {
+                    String name = "GrpcM" + index + "_" + j;
+                    file.addMessageType(message(name, "." + protoPackage + "." + name, nestingDepth));
+                    topLevel.add("." + protoPackage + "." + name);
+                }
+                for (int s = 0; s < servicesPerFile; ++s) {
+                    file.addService(service(s, topLevel));
+                }
+                return file.build();
+            }
+
+            private EnumDescriptorProto enumType() {
+                EnumDescriptorProto.Builder builder = EnumDescriptorProto.newBuilder().setName("GrpcKind" + index);
+                String[] values = {"UNKNOWN", "FIRST", "SECOND"};
+                for (int v = 0; v < values.length; ++v) {
+                    builder.addValue(EnumValueDescriptorProto.newBuilder().setName("KIND" + index + "_" + values[v]).setNumber(v));
+                }
+                return builder.build();
+            }
+
+            private DescriptorProto message(String name, String fullName, int depth) {
+                messageCount++;
+                DescriptorProto.Builder message = DescriptorProto.newBuilder().setName(name);
+                if (depth > 0) {
+                    String nestedName = "GrpcN" + depth;
+                    message.addNestedType(message(nestedName, fullName + "." + nestedName, depth - 1));
+                }
+                int number = 1;
+                int openOneof = -1;
+                for (int k = 0; k < fieldsPerMessage; ++k, ++number) {
+                    double kind = random.nextDouble();
+                    String fieldName = "f" + number;
+                    FieldDescriptorProto.Builder field = FieldDescriptorProto.newBuilder()
+                            .setNumber(number)
+                            .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL);
+                    if (kind < mapRatio) {
+                        String entryName = "F" + number + "MapEntry";
+                        message.addNestedType(mapEntry(entryName));
+                        field.setName(fieldName + "_map")
+                                .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)
+                                .setType(FieldDescriptorProto.Type.TYPE_MESSAGE)
+                                .setTypeName(fullName + "." + entryName);
+                        openOneof = -1;
+                    } else {
+                        setType(field, fieldName);
+                        if (kind < mapRatio + repeatedRatio) {
+                            field.setLabel(FieldDescriptorProto.Label.LABEL_REPEATED);
+                            openOneof = -1;
+                        } else if (kind < mapRatio + repeatedRatio + oneofRatio) {
+                            // Consecutive oneof fields share their oneof
+                            if (openOneof < 0) {
+                                openOneof = message.getOneofDeclCount();
+                                message.addOneofDecl(OneofDescriptorProto.newBuilder().setName("choice" + number));
+                            }
+                            field.setOneofIndex(openOneof);
+                        } else if (kind < mapRatio + repeatedRatio + oneofRatio + optionalRatio) {
+                            // What protoc declares for a proto3 optional field
+                            field.setProto3Optional(true).setOneofIndex(message.getOneofDeclCount());
+                            message.addOneofDecl(OneofDescriptorProto.newBuilder().setName("_" + field.getName()));
+                            openOneof = -1;
+                        } else {
+                            openOneof = -1;
+                        }
+                    }
+                    message.addField(field);
+                }
+                knownMessages.add(fullName);
+                // The oneofs of the optional fields come after the real ones, as protoc orders them
+                return sortOneofs(message).build();
+            }
+
+            private void setType(FieldDescriptorProto.Builder field, String fieldName) {
+                int choice = random.nextInt(SCALARS.length + 2);
+                if (choice < SCALARS.length) {
+                    field.setName(fieldName + "_" + SCALARS[choice]).setType(scalar(SCALARS[choice]));
+                } else if (choice == SCALARS.length) {
+                    field.setName(fieldName + "_kind").setType(FieldDescriptorProto.Type.TYPE_ENUM).setTypeName(enumType);
+                } else if (!knownMessages.isEmpty()) {
+                    String typeName = knownMessages.get(random.nextInt(knownMessages.size()));
+                    field.setName(fieldName + "_ref").setType(FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(typeName);
+                } else {
+                    field.setName(fieldName + "_string").setType(FieldDescriptorProto.Type.TYPE_STRING);
+                }
+            }
+
+            private DescriptorProto mapEntry(String entryName) {
+                return DescriptorProto.newBuilder()
+                        .setName(entryName)
+                        .addField(FieldDescriptorProto.newBuilder().setName("key").setNumber(1)
+                                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL).setType(FieldDescriptorProto.Type.TYPE_STRING))
+                        .addField(FieldDescriptorProto.newBuilder().setName("value").setNumber(2)
+                                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL).setType(FieldDescriptorProto.Type.TYPE_INT64))
+                        .setOptions(DescriptorProtos.MessageOptions.newBuilder().setMapEntry(true))
+                        .build();
+            }
+
+            private ServiceDescriptorProto service(int s, List<String> messages) {
+                ServiceDescriptorProto.Builder service = ServiceDescriptorProto.newBuilder().setName("GrpcS" + index + "_" + s);
+                for (int m = 0; m < methodsPerService; ++m) {
+                    service.addMethod(MethodDescriptorProto.newBuilder()
+                            .setName("Call" + m)
+                            .setInputType(messages.get(random.nextInt(messages.size())))
+                            .setOutputType(messages.get(random.nextInt(messages.size())))
+                            .setServerStreaming(random.nextDouble() < streamingRatio));
+                }
+                return service.build();
+            }
+        }
+
+        /**
+         * Moves the oneofs of the proto3 optional fields after the other ones and renumbers the fields accordingly
+         */
+        private static DescriptorProto.Builder sortOneofs(DescriptorProto.Builder message) {
+            List<Integer> order = new ArrayList<>();
+            for (int o = 0; o < message.getOneofDeclCount(); ++o) {
+                if (!message.getOneofDecl(o).getName().startsWith("_")) order.add(o);
+            }
+            for (int o = 0; o < message.getOneofDeclCount(); ++o) {
+                if (message.getOneofDecl(o).getName().startsWith("_")) order.add(o);
+            }
+            List<OneofDescriptorProto> oneofs = new ArrayList<>();
+            int[] newIndex = new int[order.size()];
+            for (int o = 0; o < order.size(); ++o) {
+                oneofs.add(message.getOneofDecl(order.get(o)));
+                newIndex[order.get(o)] = o;
+            }
+            message.clearOneofDecl().addAllOneofDecl(oneofs);
+            for (FieldDescriptorProto.Builder field : message.getFieldBuilderList()) {
+                if (field.hasOneofIndex()) field.setOneofIndex(newIndex[field.getOneofIndex()]);
+            }
+            return message;
+        }
+
+        private static FieldDescriptorProto.Type scalar(String name) {
+            return switch (name) {
+                case "string" -> FieldDescriptorProto.Type.TYPE_STRING;
+                case "int32" -> FieldDescriptorProto.Type.TYPE_INT32;
+                case "int64" -> FieldDescriptorProto.Type.TYPE_INT64;
+                case "bool" -> FieldDescriptorProto.Type.TYPE_BOOL;
+                case "double" -> FieldDescriptorProto.Type.TYPE_DOUBLE;
+                default -> throw new IllegalArgumentException(name);
+            };
+        }
+    }
+}
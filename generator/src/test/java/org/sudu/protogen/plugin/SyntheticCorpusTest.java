@@ -0,0 +1,178 @@
+package org.sudu.protogen.plugin;
+
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.sudu.protogen.Options;
+import org.sudu.protogen.ProtogenGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SyntheticCorpusTest {
+
+    /**
+     * A linear path grows 10 times between two sizes, a quadratic one 100 times
+     */
+    private static final double SLACK = 3;
+
+    private static final int RUNS = 3;
+
+    @Nullable
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    @Test
+    void everyKindOfDeclarationIsGenerated() throws IOException {
+        SyntheticCorpus corpus = SyntheticCorpus.builder()
+                .files(3)
+                .messagesPerFile(5)
+                .fieldsPerMessage(8)
+                .nestingDepth(1)
+                .fieldMix(0.2, 0.1, 0.2, 0.2)
+                .services(2, 3, 0.5)
+                .build();
+
+        List<CodeGeneratorResponse.File> files = generate(corpus, "");
+
+        assertEquals(30, corpus.messageCount());
+        // Top-level messages and enums, then a client and a service per proto service
+        assertEquals(3 * (5 + 1) + 3 * 2 * 2, files.size());
+        assertTrue(files.stream().anyMatch(file -> file.getName().equals("org/example/synthetic/f2/M2_4.java")));
+    }
+
+    @Test
+    void originalClassesAreAnalyzed(@TempDir Path directory) throws IOException {
+        SyntheticCorpus corpus = SyntheticCorpus.builder().files(2).messagesPerFile(5).fieldsPerMessage(8).build();
+
+        // Hidden fields inherited by the original classes are read through their getters
+        assertNotEquals(generate(corpus, ""), generate(corpus, parameter(corpus, directory, true)));
+    }
+
+    /**
+     * Too slow for the {@code test} task, run by {@code scalingTest}. With the visibility analysis, the original
+     * classes of the messages are read from sources written along with the corpus.
+     */
+    @ParameterizedTest(name = "visibility analysis: {0}")
+    @ValueSource(booleans = {false, true})
+    @Tag("scaling")
+    void generationScalesLinearlyWithTheNumberOfMessages(boolean visibilityAnalysis, @TempDir Path directory) throws IOException {
+        assumeTrue(THREADS != null, "The allocations of a thread can't be measured");
+        // Loads and compiles the generator before anything is measured
+        SyntheticCorpus warmup = corpus(1_000);
+        generate(warmup, parameter(warmup, directory, visibilityAnalysis));
+
+        Run previous = null;
+        int previousMessages = 0;
+        for (int messages : new int[]{10, 100, 1_000, 10_000}) {
+            SyntheticCorpus corpus = corpus(messages);
+            Run run = median(corpus, parameter(corpus, directory, visibilityAnalysis));
+            if (previous != null) {
+                String sizes = " from " + previousMessages + " to " + messages + " messages";
+                assertTrue(run.nanos() < previous.nanos() * 10 * SLACK,
+                        "Generation time grew from " + previous.nanos() + " to " + run.nanos() + " ns" + sizes);
+                assertTrue(run.allocatedBytes() < previous.allocatedBytes() * 10 * SLACK,
+                        "Allocations grew from " + previous.allocatedBytes() + " to " + run.allocatedBytes() + " bytes" + sizes);
+            }
+            previous = run;
+            previousMessages = messages;
+        }
+    }
+
+    /**
+     * The median time and allocations of several runs, a collection or a compilation falling in one run doesn't count
+     */
+    private static Run median(SyntheticCorpus corpus, String parameter) throws IOException {
+        long[] nanos = new long[RUNS];
+        long[] allocatedBytes = new long[RUNS];
+        for (int i = 0; i < RUNS; ++i) {
+            Run run = measure(corpus, parameter);
+            nanos[i] = run.nanos();
+            allocatedBytes[i] = run.allocatedBytes();
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(allocatedBytes);
+        return new Run(nanos[RUNS / 2], allocatedBytes[RUNS / 2]);
+    }
+
+    private static SyntheticCorpus corpus(int messages) {
+        int messagesPerFile = Math.min(messages, 50);
+        return SyntheticCorpus.builder()
+                .files(messages / messagesPerFile)
+                .messagesPerFile(messagesPerFile)
+                .fieldsPerMessage(6)
+                .build();
+    }
+
+    /**
+     * Writes the original classes of the corpus and a configuration reading them, the results of the analysis
+     * are not persisted so that every run analyzes them again
+     *
+     * @return the parameter of the plugin, empty without the visibility analysis
+     */
+    private static String parameter(SyntheticCorpus corpus, Path directory, boolean visibilityAnalysis) throws IOException {
+        if (!visibilityAnalysis) {
+            return "";
+        }
+        Path corpusDirectory = directory.resolve(String.valueOf(corpus.messageCount()));
+        Path sources = corpusDirectory.resolve("src");
+        if (Files.notExists(sources)) {
+            corpus.writeSources(sources);
+            Files.writeString(corpusDirectory.resolve("protogen.yaml"), """
+                    visibility:
+                      sourceRoots:
+                        - '%s'
+                      cacheFile: ""
+                    """.formatted(sources.toAbsolutePath()));
+        }
+        return "config=" + corpusDirectory.toAbsolutePath();
+    }
+
+    /**
+     * The generation runs in the calling thread, with the default parallelism
+     */
+    private static Run measure(SyntheticCorpus corpus, String parameter) throws IOException {
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        generate(corpus, parameter);
+        long nanos = System.nanoTime() - start;
+        return new Run(nanos, THREADS.getCurrentThreadAllocatedBytes() - allocated);
+    }
+
+    private static List<CodeGeneratorResponse.File> generate(SyntheticCorpus corpus, String parameter) throws IOException {
+        // Parsed again to get the options the way the plugin gets them
+        CodeGeneratorRequest request = ProtocPluginTesting.readRequest(
+                new ByteArrayInputStream(corpus.toRequest(parameter).toByteArray()), Options.extensionRegistry());
+        return new ProtogenGenerator().generateFiles(request);
+    }
+
+    /**
+     * @param allocatedBytes what the generation allocated, whether it is still reachable or not
+     */
+    private record Run(long nanos, long allocatedBytes) {
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+}
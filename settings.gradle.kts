@@ -4,5 +4,6 @@ include(
     "javapoet",
     "options",
     "generator",
-    "tests"
+    "tests",
+    "benchmarks"
 )
\ No newline at end of file
@@ -31,7 +31,10 @@ protobuf {
                     // so windows-paths broke options list. To overcome it I suggest to replace it with "*"
                     option("config=$projectDir/src/test/proto/protogen/".replace(":", "*"))
                 }
-                id("protogen-debug")
+                id("protogen-debug") {
+                    // The dumped request trains the class data archive of the plugin, it has to read the config too
+                    option("config=$projectDir/src/test/proto/protogen/".replace(":", "*"))
+                }
             }
         }
     }